@@ -0,0 +1,619 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder.processor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.noradltd.easybuilder.EasyBuild;
+
+/**
+ * The source of the builder generated for one class. The builder offers the
+ * DSL of EasyBuilder and resolves it while it is generated, the way
+ * EasyBuilder resolves it when it builds:
+ * 
+ * setField(name, value) writes the most derived instance field with that
+ * name. The field is written directly if it is not final and the builder may
+ * name both the field and its type, and through a handle from
+ * EasyBuildSupport otherwise. Static fields are not written.
+ * 
+ * useAlternateConstructor(args) and invokeMethod(name, args) choose among
+ * the constructors, and the methods declared by the class and its
+ * superclasses, as Overloads does, and call the chosen one directly where
+ * they may and through a handle otherwise. A method that does not accept
+ * the arguments is not called.
+ * 
+ * Values and arguments are checked and converted when the DSL is called, so
+ * a build only writes fields and calls constructors and methods.
+ */
+final class BuilderSource {
+
+	private static final String SUPPORT = "com.noradltd.easybuilder.EasyBuildSupport";
+
+	/**
+	 * The wrapper of each primitive, in the order of TypeKind.
+	 */
+	private static final String[] WRAPPERS = { "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Integer",
+			"java.lang.Long", "java.lang.Character", "java.lang.Float", "java.lang.Double" };
+
+	private final Elements elements;
+
+	private final Types types;
+
+	private final TypeElement target;
+
+	private final PackageElement pkg;
+
+	private final String targetName;
+
+	private final String builderName;
+
+	/**
+	 * The static members of the builder, handles and signature tables.
+	 */
+	private final StringBuffer statics = new StringBuffer();
+
+	BuilderSource(ProcessingEnvironment env, TypeElement target_p) {
+		elements = env.getElementUtils();
+		types = env.getTypeUtils();
+		target = target_p;
+		pkg = elements.getPackageOf(target);
+		targetName = target.getQualifiedName().toString();
+		String name = target.getAnnotation(EasyBuild.class).value();
+		if (name.length() == 0) {
+			StringBuffer flattened = new StringBuffer(target.getSimpleName());
+			Element enclosing = target.getEnclosingElement();
+			while (enclosing instanceof TypeElement) {
+				flattened.insert(0, '_').insert(0, enclosing.getSimpleName());
+				enclosing = enclosing.getEnclosingElement();
+			}
+			name = flattened.append("Builder").toString();
+		}
+		builderName = name;
+	}
+
+	/**
+	 * @return The qualified name of the builder
+	 */
+	String getQualifiedName() {
+		return pkg.isUnnamed() ? builderName : new StringBuffer(pkg.getQualifiedName()).append('.').append(builderName).toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer methods = new StringBuffer();
+		writeSetField(methods);
+		writeConstructors(methods);
+		writeInvokeMethod(methods);
+		writeBuild(methods);
+
+		StringBuffer sb = new StringBuffer();
+		if (!pkg.isUnnamed()) {
+			sb.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+		}
+		sb.append("/**\n * Builds instances of ").append(targetName).append(", see com.noradltd.easybuilder.EasyBuild.\n */\n");
+		if (elements.getTypeElement("javax.annotation.processing.Generated") != null) {
+			sb.append("@javax.annotation.processing.Generated(\"").append(EasyBuildProcessor.class.getName()).append("\")\n");
+		}
+		sb.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+		if (isPublic(target)) {
+			sb.append("public ");
+		}
+		sb.append("final class ").append(builderName).append(" {\n");
+		sb.append(statics);
+		sb.append("\n\tprivate final java.util.List<java.util.function.Consumer<").append(targetName).append(">> steps = new java.util.ArrayList<java.util.function.Consumer<")
+				.append(targetName).append(">>();\n");
+		sb.append("\n\tprivate java.util.function.Supplier<").append(targetName).append("> instantiation = constructing(").append(defaultConstructor())
+				.append(", new Object[0]);\n");
+		sb.append(methods);
+		return sb.append("}\n").toString();
+	}
+
+	//
+	// setField
+	//
+
+	private void writeSetField(StringBuffer sb) {
+		Map<String, VariableElement> fields = new LinkedHashMap<String, VariableElement>();
+		List<TypeElement> hierarchy = hierarchy();
+		for (int idx = 0; idx < hierarchy.size(); idx++) {
+			Iterator<VariableElement> itr = ElementFilter.fieldsIn(hierarchy.get(idx).getEnclosedElements()).iterator();
+			while (itr.hasNext()) {
+				VariableElement field = itr.next();
+				String name = field.getSimpleName().toString();
+				if (!fields.containsKey(name)) {
+					fields.put(name, field);
+				}
+			}
+		}
+
+		sb.append("\n\tpublic ").append(builderName).append(" setField(String fieldName, Object value) {\n");
+		List<String> cases = new ArrayList<String>();
+		Iterator<VariableElement> itr = fields.values().iterator();
+		while (itr.hasNext()) {
+			VariableElement field = itr.next();
+			// a most derived static field masks the instance fields it names
+			if (!field.getModifiers().contains(Modifier.STATIC)) {
+				cases.add(setFieldCase(field));
+			}
+		}
+		if (!cases.isEmpty()) {
+			sb.append("\t\tswitch (fieldName) {\n");
+			for (int idx = 0; idx < cases.size(); idx++) {
+				sb.append(cases.get(idx));
+			}
+			sb.append("\t\t}\n");
+		}
+		sb.append("\t\tthrow new RuntimeException(\"\", new NoSuchFieldException(\"Field not found for name \" + fieldName));\n");
+		sb.append("\t}\n");
+	}
+
+	private String setFieldCase(VariableElement field) {
+		String name = field.getSimpleName().toString();
+		TypeMirror type = types.asMemberOf(rawTarget(), field);
+		StringBuffer sb = new StringBuffer("\t\tcase \"").append(name).append("\": {\n");
+		if (!field.getModifiers().contains(Modifier.FINAL) && isAccessible(field) && isNameable(type)) {
+			sb.append("\t\t\tfinal ").append(nameOf(type)).append(" value$ = ").append(checked(type, "value", name)).append(";\n");
+			sb.append("\t\t\tsteps.add(instance$ -> instance$.").append(name).append(" = value$);\n");
+		} else {
+			String setter = "FIELD_" + name;
+			statics.append("\n\tprivate static final java.lang.invoke.MethodHandle ").append(setter).append(" = ").append(SUPPORT)
+					.append(".fieldSetter(").append(classLiteral(field.getEnclosingElement().asType())).append(", \"").append(name)
+					.append("\");\n");
+			sb.append("\t\t\tfinal Object value$ = ").append(boxed(type, checked(type, "value", name))).append(";\n");
+			sb.append("\t\t\tsteps.add(instance$ -> ").append(SUPPORT).append(".set(").append(setter).append(", instance$, value$));\n");
+		}
+		return sb.append("\t\t\treturn this;\n\t\t}\n").toString();
+	}
+
+	/**
+	 * @return An expression that checks, and converts, a value for a field
+	 */
+	private String checked(TypeMirror type, String value, String fieldName) {
+		if (type.getKind().isPrimitive()) {
+			return conversion(type, value);
+		}
+		String typeClass = classLiteral(type);
+		if (!isNameable(type)) {
+			// loaded once, not each time the field is set
+			typeClass = "FIELD_TYPE_" + fieldName;
+			statics.append("\n\tprivate static final Class<?> ").append(typeClass).append(" = ").append(classLiteral(type)).append(";\n");
+		}
+		return new StringBuffer(SUPPORT).append(".cast(").append(typeClass).append(", ").append(value).append(", \"").append(fieldName)
+				.append("\")").toString();
+	}
+
+	//
+	// bypassConstructor and useAlternateConstructor
+	//
+
+	private void writeConstructors(StringBuffer sb) {
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(target.getEnclosedElements());
+		List<List<ExecutableElement>> levels = new ArrayList<List<ExecutableElement>>();
+		levels.add(constructors);
+		statics.append("\n\tprivate static final Class<?>[][][] CONSTRUCTOR_SIGNATURES = ").append(signatures(levels)).append(";\n");
+
+		sb.append("\n\tpublic ").append(builderName).append(" bypassConstructor() {\n");
+		sb.append("\t\tinstantiation = ").append(SUPPORT).append(".bypassing(").append(targetName).append(".class);\n");
+		sb.append("\t\treturn this;\n\t}\n");
+
+		sb.append("\n\tpublic ").append(builderName).append(" useAlternateConstructor(Object[] args) {\n");
+		sb.append("\t\tObject[] args$ = ").append(SUPPORT).append(".arguments(args);\n");
+		sb.append("\t\tinstantiation = constructing(").append(SUPPORT).append(".select(\"").append(targetName)
+				.append("\", CONSTRUCTOR_SIGNATURES, args$), args$);\n");
+		sb.append("\t\treturn this;\n\t}\n");
+
+		sb.append("\n\tprivate static java.util.function.Supplier<").append(targetName).append("> constructing(int constructor, Object[] args$) {\n");
+		sb.append("\t\tswitch (constructor) {\n");
+		for (int idx = 0; idx < constructors.size(); idx++) {
+			ExecutableElement constructor = constructors.get(idx);
+			sb.append("\t\tcase ").append(idx).append(": {\n");
+			if (isInvokable(constructor)) {
+				sb.append(arguments(constructor, "\t\t\t"));
+				sb.append("\t\t\treturn () -> {\n\t\t\t\ttry {\n");
+				sb.append("\t\t\t\t\treturn new ").append(targetName).append("(").append(argumentList(constructor)).append(");\n");
+				sb.append("\t\t\t\t} catch (Throwable t$) {\n");
+				sb.append("\t\t\t\t\tthrow ").append(SUPPORT).append(".initializationFailure(").append(targetName).append(".class, t$);\n");
+				sb.append("\t\t\t\t}\n\t\t\t};\n");
+			} else {
+				String handle = "CONSTRUCTOR_" + idx;
+				statics.append("\n\tprivate static final java.lang.invoke.MethodHandle ").append(handle).append(" = ").append(SUPPORT)
+						.append(".constructor(").append(targetName).append(".class").append(parameterClasses(constructor)).append(");\n");
+				sb.append(boxedArguments(constructor, "\t\t\t"));
+				sb.append("\t\t\treturn () -> (").append(targetName).append(") ").append(SUPPORT).append(".newInstance(").append(targetName)
+						.append(".class, ").append(handle).append(", arguments$);\n");
+			}
+			sb.append("\t\t}\n");
+		}
+		sb.append("\t\tdefault:\n");
+		sb.append("\t\t\treturn () -> {\n\t\t\t\tthrow ").append(SUPPORT).append(".missingConstructor(").append(targetName)
+				.append(".class, args$);\n\t\t\t};\n");
+		sb.append("\t\t}\n\t}\n");
+	}
+
+	/**
+	 * @return The index of the constructor without parameters, or -1 if
+	 *         there is none
+	 */
+	private int defaultConstructor() {
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(target.getEnclosedElements());
+		for (int idx = 0; idx < constructors.size(); idx++) {
+			if (constructors.get(idx).getParameters().isEmpty()) {
+				return idx;
+			}
+		}
+		return -1;
+	}
+
+	//
+	// invokeMethod
+	//
+
+	private void writeInvokeMethod(StringBuffer sb) {
+		Map<String, List<List<ExecutableElement>>> methods = new LinkedHashMap<String, List<List<ExecutableElement>>>();
+		List<TypeElement> hierarchy = hierarchy();
+		for (int level = 0; level < hierarchy.size(); level++) {
+			Map<String, List<ExecutableElement>> declared = new LinkedHashMap<String, List<ExecutableElement>>();
+			Iterator<ExecutableElement> itr = ElementFilter.methodsIn(hierarchy.get(level).getEnclosedElements()).iterator();
+			while (itr.hasNext()) {
+				ExecutableElement method = itr.next();
+				String name = method.getSimpleName().toString();
+				if (!declared.containsKey(name)) {
+					declared.put(name, new ArrayList<ExecutableElement>());
+				}
+				declared.get(name).add(method);
+			}
+			Iterator<Map.Entry<String, List<ExecutableElement>>> entries = declared.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<String, List<ExecutableElement>> entry = entries.next();
+				if (!methods.containsKey(entry.getKey())) {
+					methods.put(entry.getKey(), new ArrayList<List<ExecutableElement>>());
+				}
+				methods.get(entry.getKey()).add(entry.getValue());
+			}
+		}
+
+		sb.append("\n\tpublic ").append(builderName).append(" invokeMethod(String methodName, Object[] args) {\n");
+		sb.append("\t\tfinal Object[] args$ = ").append(SUPPORT).append(".arguments(args);\n");
+		sb.append("\t\tswitch (methodName) {\n");
+		Iterator<Map.Entry<String, List<List<ExecutableElement>>>> itr = methods.entrySet().iterator();
+		while (itr.hasNext()) {
+			Map.Entry<String, List<List<ExecutableElement>>> entry = itr.next();
+			String name = entry.getKey();
+			statics.append("\n\tprivate static final Class<?>[][][] SIGNATURES_").append(name).append(" = ").append(signatures(entry.getValue()))
+					.append(";\n");
+			sb.append("\t\tcase \"").append(name).append("\":\n");
+			sb.append("\t\t\tswitch (").append(SUPPORT).append(".select(\"").append(name).append("\", SIGNATURES_").append(name)
+					.append(", args$)) {\n");
+			int index = 0;
+			for (int level = 0; level < entry.getValue().size(); level++) {
+				List<ExecutableElement> candidates = entry.getValue().get(level);
+				for (int idx = 0; idx < candidates.size(); idx++) {
+					sb.append(invokeMethodCase(candidates.get(idx), index++));
+				}
+			}
+			sb.append("\t\t\t}\n\t\t\tbreak;\n");
+		}
+		sb.append("\t\t}\n\t\treturn this;\n\t}\n");
+	}
+
+	private String invokeMethodCase(ExecutableElement method, int index) {
+		String name = method.getSimpleName().toString();
+		boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+		StringBuffer sb = new StringBuffer("\t\t\tcase ").append(index).append(": {\n");
+		if (isInvokable(method)) {
+			sb.append(arguments(method, "\t\t\t\t"));
+			sb.append("\t\t\t\tsteps.add(instance$ -> {\n\t\t\t\t\ttry {\n\t\t\t\t\t\t");
+			sb.append(isStatic ? nameOf(method.getEnclosingElement().asType()) : "instance$").append('.').append(name).append('(')
+					.append(argumentList(method)).append(");\n");
+			sb.append("\t\t\t\t\t} catch (Throwable t$) {\n");
+			sb.append("\t\t\t\t\t\tthrow ").append(SUPPORT).append(".invocationFailure(t$);\n");
+			sb.append("\t\t\t\t\t}\n\t\t\t\t});\n");
+		} else {
+			String handle = new StringBuffer("METHOD_").append(name).append('_').append(index).toString();
+			statics.append("\n\tprivate static final java.lang.invoke.MethodHandle ").append(handle).append(" = ").append(SUPPORT).append(".method(")
+					.append(classLiteral(method.getEnclosingElement().asType())).append(", \"").append(name).append('"')
+					.append(parameterClasses(method)).append(");\n");
+			sb.append(boxedArguments(method, "\t\t\t\t"));
+			sb.append("\t\t\t\tsteps.add(instance$ -> ").append(SUPPORT).append(".invoke(").append(handle).append(", instance$, arguments$));\n");
+		}
+		return sb.append("\t\t\t\tbreak;\n\t\t\t}\n").toString();
+	}
+
+	//
+	// build
+	//
+
+	private void writeBuild(StringBuffer sb) {
+		sb.append("\n\tpublic ").append(targetName).append(" build() {\n");
+		sb.append("\t\t").append(targetName).append(" instance$ = instantiation.get();\n");
+		sb.append("\t\tfor (int idx$ = 0; idx$ < steps.size(); idx$++) {\n");
+		sb.append("\t\t\tsteps.get(idx$).accept(instance$);\n");
+		sb.append("\t\t}\n\t\treturn instance$;\n\t}\n");
+	}
+
+	//
+	// Constructors and methods
+	//
+
+	/**
+	 * @return An array initializer of the parameter types of each candidate,
+	 *         by level
+	 */
+	private String signatures(List<List<ExecutableElement>> levels) {
+		StringBuffer sb = new StringBuffer("{");
+		for (int level = 0; level < levels.size(); level++) {
+			sb.append((level == 0) ? " {" : ", {");
+			List<ExecutableElement> candidates = levels.get(level);
+			for (int idx = 0; idx < candidates.size(); idx++) {
+				sb.append((idx == 0) ? " {" : ", {");
+				List<? extends VariableElement> parameters = candidates.get(idx).getParameters();
+				for (int param = 0; param < parameters.size(); param++) {
+					sb.append((param == 0) ? " " : ", ").append(classLiteral(parameters.get(param).asType()));
+				}
+				sb.append(" }");
+			}
+			sb.append(" }");
+		}
+		return sb.append(" }").toString();
+	}
+
+	/**
+	 * A constructor or method is called directly if the builder may call it
+	 * and may name the type of each of its parameters.
+	 */
+	private boolean isInvokable(ExecutableElement executable) {
+		if (!isAccessible(executable)) {
+			return false;
+		}
+		List<? extends TypeMirror> parameters = parameterTypes(executable);
+		for (int idx = 0; idx < parameters.size(); idx++) {
+			if (!isNameable(parameters.get(idx))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Declarations of the converted arguments, arg0$ and so on
+	 */
+	private String arguments(ExecutableElement executable, String indent) {
+		StringBuffer sb = new StringBuffer();
+		List<? extends TypeMirror> parameters = parameterTypes(executable);
+		for (int idx = 0; idx < parameters.size(); idx++) {
+			TypeMirror type = parameters.get(idx);
+			String arg = new StringBuffer("args$[").append(idx).append("]").toString();
+			sb.append(indent).append("final ").append(nameOf(type)).append(" arg").append(idx).append("$ = ")
+					.append(type.getKind().isPrimitive() ? conversion(type, arg) : cast(type, arg)).append(";\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return arg cast to type, unless type is Object
+	 */
+	private String cast(TypeMirror type, String arg) {
+		String name = nameOf(type);
+		return name.equals("java.lang.Object") ? arg : new StringBuffer("(").append(name).append(") ").append(arg).toString();
+	}
+
+	private String argumentList(ExecutableElement executable) {
+		StringBuffer sb = new StringBuffer();
+		for (int idx = 0; idx < executable.getParameters().size(); idx++) {
+			sb.append((idx == 0) ? "arg" : ", arg").append(idx).append("$");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return The declaration of arguments$, the arguments converted for a
+	 *         handle
+	 */
+	private String boxedArguments(ExecutableElement executable, String indent) {
+		StringBuffer sb = new StringBuffer(indent).append("final Object[] arguments$ = new Object[] {");
+		List<? extends TypeMirror> parameters = parameterTypes(executable);
+		for (int idx = 0; idx < parameters.size(); idx++) {
+			String arg = new StringBuffer("args$[").append(idx).append("]").toString();
+			TypeMirror type = parameters.get(idx);
+			sb.append((idx == 0) ? " " : ", ").append(type.getKind().isPrimitive() ? boxed(type, conversion(type, arg)) : arg);
+		}
+		return sb.append(" };\n").toString();
+	}
+
+	private String parameterClasses(ExecutableElement executable) {
+		StringBuffer sb = new StringBuffer();
+		List<? extends VariableElement> parameters = executable.getParameters();
+		for (int idx = 0; idx < parameters.size(); idx++) {
+			sb.append(", ").append(classLiteral(parameters.get(idx).asType()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return The parameter types of a constructor or method, as members of
+	 *         the raw class, the way the builder calls them
+	 */
+	private List<? extends TypeMirror> parameterTypes(ExecutableElement executable) {
+		return ((ExecutableType) types.asMemberOf(rawTarget(), executable)).getParameterTypes();
+	}
+
+	//
+	// Types
+	//
+
+	/**
+	 * The builder uses the raw type of a generic class, so members are seen
+	 * with their type variables erased.
+	 */
+	private DeclaredType rawTarget() {
+		return (DeclaredType) types.erasure(target.asType());
+	}
+
+	/**
+	 * @return The class and its superclasses, up to but excluding Object
+	 */
+	private List<TypeElement> hierarchy() {
+		List<TypeElement> rval = new ArrayList<TypeElement>();
+		TypeElement type = target;
+		while (type != null && !type.getQualifiedName().contentEquals("java.lang.Object")) {
+			rval.add(type);
+			TypeMirror superclass = type.getSuperclass();
+			type = (superclass.getKind() == TypeKind.DECLARED) ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+		}
+		return rval;
+	}
+
+	/**
+	 * @return true if the builder, in the package of the class, may use
+	 *         element, a type or a member of one
+	 */
+	private boolean isAccessible(Element element) {
+		Set<Modifier> modifiers = element.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			return false;
+		}
+		if (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(element).getQualifiedName().contentEquals(pkg.getQualifiedName())) {
+			return false;
+		}
+		Element enclosing = element.getEnclosingElement();
+		return !(enclosing instanceof TypeElement) || isAccessible(enclosing);
+	}
+
+	private boolean isPublic(TypeElement type) {
+		Element element = type;
+		while (element instanceof TypeElement) {
+			if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+			element = element.getEnclosingElement();
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the builder may name the erasure of type
+	 */
+	private boolean isNameable(TypeMirror type) {
+		TypeMirror erased = types.erasure(type);
+		if (erased.getKind() == TypeKind.ARRAY) {
+			return isNameable(((ArrayType) erased).getComponentType());
+		}
+		if (erased.getKind() == TypeKind.DECLARED) {
+			return isAccessible(((DeclaredType) erased).asElement());
+		}
+		return erased.getKind().isPrimitive();
+	}
+
+	/**
+	 * @return The erasure of type, as it is written in source
+	 */
+	private String nameOf(TypeMirror type) {
+		TypeMirror erased = types.erasure(type);
+		if (erased.getKind() == TypeKind.ARRAY) {
+			return nameOf(((ArrayType) erased).getComponentType()) + "[]";
+		}
+		if (erased.getKind() == TypeKind.DECLARED) {
+			return ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+		}
+		return erased.getKind().name().toLowerCase();
+	}
+
+	/**
+	 * @return An expression of the erasure of type as a Class, loaded by name
+	 *         if the builder may not name it
+	 */
+	private String classLiteral(TypeMirror type) {
+		if (isNameable(type)) {
+			return nameOf(type) + ".class";
+		}
+		return new StringBuffer(SUPPORT).append(".typeNamed(").append(targetName).append(".class, \"").append(binaryNameOf(type)).append("\")")
+				.toString();
+	}
+
+	/**
+	 * @return The name of the erasure of type, as Class.forName accepts it
+	 */
+	private String binaryNameOf(TypeMirror type) {
+		TypeMirror erased = types.erasure(type);
+		if (erased.getKind() == TypeKind.ARRAY) {
+			return "[" + descriptorOf(((ArrayType) erased).getComponentType());
+		}
+		return elements.getBinaryName((TypeElement) ((DeclaredType) erased).asElement()).toString();
+	}
+
+	private String descriptorOf(TypeMirror type) {
+		TypeMirror erased = types.erasure(type);
+		switch (erased.getKind()) {
+		case ARRAY:
+			return binaryNameOf(erased);
+		case DECLARED:
+			return "L" + binaryNameOf(erased) + ";";
+		case BOOLEAN:
+			return "Z";
+		case LONG:
+			return "J";
+		default:
+			return erased.getKind().name().substring(0, 1);
+		}
+	}
+
+	/**
+	 * @return An expression that converts value, a wrapper, to the primitive
+	 *         type, as EasyBuildSupport does
+	 */
+	private String conversion(TypeMirror type, String value) {
+		return new StringBuffer(SUPPORT).append('.').append(nameOf(type)).append("Value(").append(value).append(")").toString();
+	}
+
+	/**
+	 * @return expression, wrapped if type is primitive
+	 */
+	private String boxed(TypeMirror type, String expression) {
+		if (!type.getKind().isPrimitive()) {
+			return expression;
+		}
+		return new StringBuffer(WRAPPERS[type.getKind().ordinal()]).append(".valueOf(").append(expression).append(")").toString();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a builder for each class annotated with EasyBuild, see
+ * BuilderSource. The builder has to reach the class from its own package, so
+ * the class must be a concrete, non-private, top level or static nested
+ * class; any other use of the annotation is reported as an error.
+ */
+@SupportedAnnotationTypes("com.noradltd.easybuilder.EasyBuild")
+public class EasyBuildProcessor extends AbstractProcessor {
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Iterator<? extends TypeElement> annotationItr = annotations.iterator();
+		while (annotationItr.hasNext()) {
+			Iterator<? extends Element> itr = roundEnv.getElementsAnnotatedWith(annotationItr.next()).iterator();
+			while (itr.hasNext()) {
+				Element element = itr.next();
+				String problem = checkBuildable(element);
+				if (problem == null) {
+					generate((TypeElement) element);
+				} else {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, problem, element);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Why no builder can be generated for element, or null if one can
+	 */
+	private String checkBuildable(Element element) {
+		if (element.getKind() != ElementKind.CLASS) {
+			return "@EasyBuild applies to classes only";
+		}
+		TypeElement type = (TypeElement) element;
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return "@EasyBuild can not build an abstract class";
+		}
+		while (type != null) {
+			if (type.getModifiers().contains(Modifier.PRIVATE)) {
+				return "@EasyBuild can not build a private class, or a class nested in one";
+			}
+			if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+				return "@EasyBuild can not build a local class";
+			}
+			if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+				return "@EasyBuild can not build an inner class, make it static";
+			}
+			type = (type.getEnclosingElement() instanceof TypeElement) ? (TypeElement) type.getEnclosingElement() : null;
+		}
+		return null;
+	}
+
+	private void generate(TypeElement target) {
+		BuilderSource source = new BuilderSource(processingEnv, target);
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(source.getQualifiedName(), target);
+			Writer writer = file.openWriter();
+			try {
+				writer.write(source.toString());
+			} finally {
+				writer.close();
+			}
+		} catch (IOException ioe) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					new StringBuffer("@EasyBuild could not write ").append(source.getQualifiedName()).append(": ").append(ioe.getMessage()).toString(),
+					target);
+		}
+	}
+}
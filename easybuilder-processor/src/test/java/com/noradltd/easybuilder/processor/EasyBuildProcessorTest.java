@@ -0,0 +1,344 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder.processor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import com.noradltd.easybuilder.EasyBuild;
+import com.noradltd.easybuilder.EasyBuilder;
+
+public class EasyBuildProcessorTest {
+
+	private static final File GENERATED = new File("target/generated-test-sources/test-annotations/com/noradltd/easybuilder/processor");
+
+	@Test
+	public void testSetsFields() {
+		Accessible accessible = new AccessibleBuilder().setField("name", "name").setField("count", 3).build();
+
+		assertThat(accessible.name, is("name"));
+		assertThat(accessible.count, is(3));
+	}
+
+	@Test
+	public void testWidensPrimitives() {
+		Accessible accessible = new AccessibleBuilder().setField("total", Integer.valueOf(7)).setField("ratio", Character.valueOf('a')).build();
+
+		assertThat(accessible.total, is(7L));
+		assertThat(accessible.ratio, is(97.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsValuesThatDoNotFit() {
+		new AccessibleBuilder().setField("count", Long.valueOf(3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsNullForAPrimitive() {
+		new AccessibleBuilder().setField("count", null);
+	}
+
+	@Test
+	public void testUnknownFieldsFailAsEasyBuilderFails() {
+		try {
+			new AccessibleBuilder().setField("missing", "value");
+			fail("expected the field to be missing");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause(), instanceOf(NoSuchFieldException.class));
+		}
+	}
+
+	@Test
+	public void testSetsPrivateFinalAndInheritedFields() {
+		Guarded guarded = new GuardedBuilder().setField("secret", 42).setField("id", "id").setField("inherited", "inherited")
+				.setField("parentSecret", "parent").build();
+
+		assertThat(guarded.getSecret(), is(42));
+		assertThat(guarded.id, is("id"));
+		assertThat(guarded.inherited, is("inherited"));
+		assertThat(guarded.getParentSecret(), is("parent"));
+	}
+
+	@Test
+	public void testSetsTheMostDerivedField() {
+		Guarded guarded = new GuardedBuilder().setField("shadowed", "child").build();
+
+		assertThat(guarded.shadowed, is("child"));
+		assertThat(((GuardedParent) guarded).shadowed, nullValue());
+	}
+
+	@Test
+	public void testEachBuildIsANewInstance() {
+		AccessibleBuilder builder = new AccessibleBuilder().setField("name", "name");
+
+		assertThat(builder.build(), not(sameInstance(builder.build())));
+	}
+
+	@Test
+	public void testCallsTheDefaultConstructor() {
+		assertThat(new AccessibleBuilder().build().constructed, is(true));
+	}
+
+	@Test
+	public void testBypassesTheConstructor() {
+		assertThat(new AccessibleBuilder().bypassConstructor().build().constructed, is(false));
+	}
+
+	@Test
+	public void testUsesTheMostSpecificAlternateConstructor() {
+		assertThat(new AccessibleBuilder().useAlternateConstructor(new Object[] { "name" }).build().name, is("String"));
+		assertThat(new AccessibleBuilder().useAlternateConstructor(new Object[] { Integer.valueOf(1) }).build().name, is("Object"));
+		assertThat(new AccessibleBuilder().useAlternateConstructor(new Object[] { Short.valueOf((short) 2) }).build().name, is("Object"));
+	}
+
+	@Test
+	public void testUsesPrivateConstructors() {
+		Guarded guarded = new GuardedBuilder().useAlternateConstructor(new Object[] { Short.valueOf((short) 5) }).build();
+
+		assertThat(guarded.getSecret(), is(5));
+	}
+
+	@Test
+	public void testMissingConstructorsFailWhenBuilt() {
+		GuardedBuilder builder = new GuardedBuilder().useAlternateConstructor(new Object[] { "none", "accepts", "this" });
+		try {
+			builder.build();
+			fail("expected no constructor to accept the arguments");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause(), instanceOf(NoSuchMethodException.class));
+		}
+	}
+
+	@Test
+	public void testInvokesMethods() {
+		Accessible accessible = new AccessibleBuilder().invokeMethod("named", new Object[] { "named" }).invokeMethod("add", new Object[] { 2 })
+				.invokeMethod("add", new Object[] { 3 }).build();
+
+		assertThat(accessible.name, is("named"));
+		assertThat(accessible.count, is(5));
+	}
+
+	@Test
+	public void testInvokesPrivateAndInheritedMethods() {
+		Guarded guarded = new GuardedBuilder().invokeMethod("hide", new Object[] { Integer.valueOf(9) })
+				.invokeMethod("inherit", new Object[] { "inherited" }).build();
+
+		assertThat(guarded.getSecret(), is(9));
+		assertThat(guarded.inherited, is("inherited"));
+	}
+
+	@Test
+	public void testSkipsMethodsThatDoNotAcceptTheArguments() {
+		Accessible accessible = new AccessibleBuilder().invokeMethod("named", new Object[] { 1 }).invokeMethod("missing", null).build();
+
+		assertThat(accessible.name, nullValue());
+	}
+
+	@Test
+	public void testMethodFailuresAreReportedAsEasyBuilderReportsThem() {
+		AccessibleBuilder builder = new AccessibleBuilder().invokeMethod("fail", null);
+		try {
+			builder.build();
+			fail("expected the method to fail");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause(), instanceOf(InvocationTargetException.class));
+			assertThat(re.getCause().getCause(), instanceOf(IllegalStateException.class));
+		}
+	}
+
+	@Test
+	public void testBuildsWhatEasyBuilderBuilds() {
+		Guarded dynamic = (Guarded) new EasyBuilder(Guarded.class).setField("secret", 1).setField("id", "id").invokeMethod("inherit",
+				new Object[] { "inherited" }).build();
+		Guarded generated = new GuardedBuilder().setField("secret", 1).setField("id", "id").invokeMethod("inherit", new Object[] { "inherited" })
+				.build();
+
+		assertThat(generated.getSecret(), is(dynamic.getSecret()));
+		assertThat(generated.id, is(dynamic.id));
+		assertThat(generated.inherited, is(dynamic.inherited));
+	}
+
+	@Test
+	public void testNamesBuildersOfNestedClassesAfterTheirOuterClass() {
+		assertThat(new EasyBuildProcessorTest_NestedBuilder().setField("value", "nested").build().value, is("nested"));
+	}
+
+	@Test
+	public void testNamesBuildersAsAsked() {
+		assertThat(new CustomNamedBuilder().setField("value", "custom").build().value, is("custom"));
+	}
+
+	@Test
+	public void testBuildsAccessibleClassesWithoutHandles() throws IOException {
+		String source = new String(Files.readAllBytes(new File(GENERATED, "AccessibleBuilder.java").toPath()), "UTF-8");
+
+		assertThat(source, not(containsString("MethodHandle")));
+		assertThat(source, not(containsString("typeNamed")));
+	}
+
+	@Test
+	public void testReportsClassesItCanNotBuild() {
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("abstract class Unbuildable {}");
+
+		assertThat(diagnostics.size(), is(1));
+		assertThat(diagnostics.get(0).getKind(), is(Diagnostic.Kind.ERROR));
+		assertThat(diagnostics.get(0).getMessage(null), containsString("abstract"));
+	}
+
+	@Test
+	public void testReportsInnerClasses() {
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("class Unbuildable { @com.noradltd.easybuilder.EasyBuild class Inner {} }");
+
+		assertThat(diagnostics.size(), is(1));
+		assertThat(diagnostics.get(0).getMessage(null), containsString("static"));
+	}
+
+	/**
+	 * Compiles a class annotated with EasyBuild, unless the source annotates
+	 * a class itself, with only this processor.
+	 */
+	private static List<Diagnostic<? extends JavaFileObject>> compile(String source) {
+		final String code = source.startsWith("class") ? source : "@com.noradltd.easybuilder.EasyBuild " + source;
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Unbuildable.java"), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return code;
+			}
+		};
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+				Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", System.getProperty("java.io.tmpdir")), null,
+				Arrays.asList(file));
+		task.setProcessors(Arrays.asList(new EasyBuildProcessor()));
+		task.call();
+		return diagnostics.getDiagnostics();
+	}
+
+	@EasyBuild
+	static class Nested {
+		String value;
+	}
+
+	@EasyBuild("CustomNamedBuilder")
+	static class Named {
+		String value;
+	}
+}
+
+@EasyBuild
+class Accessible {
+	String name;
+	int count;
+	long total;
+	double ratio;
+	boolean constructed;
+
+	Accessible() {
+		constructed = true;
+	}
+
+	Accessible(String name_p) {
+		name = "String";
+	}
+
+	Accessible(Object name_p) {
+		name = "Object";
+	}
+
+	Accessible(int count_p) {
+		count = count_p;
+	}
+
+	void named(String name_p) {
+		name = name_p;
+	}
+
+	void add(int amount) {
+		count += amount;
+	}
+
+	void fail() {
+		throw new IllegalStateException("failed");
+	}
+}
+
+class GuardedParent {
+	String inherited;
+	String shadowed;
+	private String parentSecret;
+
+	protected void inherit(String inherited_p) {
+		inherited = inherited_p;
+	}
+
+	String getParentSecret() {
+		return parentSecret;
+	}
+}
+
+@EasyBuild
+class Guarded extends GuardedParent {
+	private int secret;
+	final String id = null;
+	String shadowed;
+
+	Guarded() {
+	}
+
+	private Guarded(int secret_p) {
+		secret = secret_p;
+	}
+
+	private void hide(int secret_p) {
+		secret = secret_p;
+	}
+
+	int getSecret() {
+		return secret;
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TracingAspectTest {
+
+	@After
+	public void tearDown() {
+		TracingAspect.setEnabled(true);
+		TracingAspect.setSampleRate(1);
+	}
+
+	@Test
+	public void testTheBuilderIsWoven() throws Exception {
+		assertThat(TracingAspect.hasAspect(), is(true));
+		assertThat(UnwovenCore.isWoven(EasyBuilder.class.getResource("EasyBuilder.class")), is(true));
+	}
+
+	@Test
+	public void testTheCoreIsNotWoven() throws Exception {
+		Class<?> unwoven = UnwovenCore.newLoader().loadClass(EasyBuilder.class.getName());
+
+		assertThat(UnwovenCore.isWoven(unwoven.getResource("EasyBuilder.class")), is(false));
+	}
+
+	@Test
+	public void testTracedBuildsAreBuilt() {
+		Traced traced = (Traced) new EasyBuilder(Traced.class).setField("name", "name").invokeMethod("count", new Object[] { 2 }).build();
+
+		assertThat(traced.name, is("name"));
+		assertThat(traced.count, is(2));
+	}
+
+	@Test
+	public void testTracedCompiledBuildsAreBuilt() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(1);
+		try {
+			EasyBuilder builder = new EasyBuilder(Traced.class).setField("name", "compiled").asTemplate();
+			builder.build();
+
+			assertThat(((Traced) builder.build()).name, is("compiled"));
+			assertThat(builder.isCompiled(), is(true));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
+	}
+
+	@Test
+	public void testEveryBuildIsTracedByDefault() {
+		EasyBuilder builder = new EasyBuilder(Traced.class).setField("name", "name").asTemplate();
+		long traced = TracingAspect.getTracedCount();
+
+		for (int idx = 0; idx < 10; idx++) {
+			builder.build();
+		}
+
+		assertThat(TracingAspect.getTracedCount() - traced, is(10L));
+	}
+
+	@Test
+	public void testOneBuildInSampleRateIsTraced() {
+		EasyBuilder builder = new EasyBuilder(Traced.class).setField("name", "name").asTemplate();
+		builder.build();
+		TracingAspect.setSampleRate(4);
+		builder.build();
+		long traced = TracingAspect.getTracedCount();
+
+		for (int idx = 0; idx < 8; idx++) {
+			builder.build();
+		}
+
+		assertThat(TracingAspect.getTracedCount() - traced, is(2L));
+	}
+
+	@Test
+	public void testBatchBuildsAreSampled() {
+		EasyBuilder builder = new EasyBuilder(Traced.class).setField("name", "name");
+		builder.build();
+		TracingAspect.setSampleRate(5);
+		builder.build();
+		long traced = TracingAspect.getTracedCount();
+
+		builder.buildMany(10);
+
+		assertThat(TracingAspect.getTracedCount() - traced, is(2L));
+	}
+
+	@Test
+	public void testTracingCanBeSwitchedOff() {
+		EasyBuilder builder = new EasyBuilder(Traced.class).setField("name", "name");
+		TracingAspect.setEnabled(false);
+		long traced = TracingAspect.getTracedCount();
+
+		builder.build();
+		builder.buildMany(10);
+
+		assertThat(TracingAspect.getTracedCount(), is(traced));
+		assertThat(TracingAspect.isEnabled(), is(false));
+	}
+
+	@Test
+	public void testSampledBuildsTraceTheirInstructions() throws Exception {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(0);
+		try {
+			new EasyBuilder(Traced.class).setField("name", "logged").build();
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
+
+		String log = new String(Files.readAllBytes(new File("target/tracing.log").toPath()), "UTF-8");
+		assertThat(Pattern.compile("Invoking Assembly Instruction .*value::logged").matcher(log).find(), is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsSampleRatesBelowOne() {
+		TracingAspect.setSampleRate(0);
+	}
+}
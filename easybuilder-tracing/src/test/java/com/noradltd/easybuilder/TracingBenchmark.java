@@ -0,0 +1,109 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what tracing costs a build: the same builder from the woven copy
+ * of the core in this module, against one from the unwoven core jar, loaded
+ * apart from it. The woven builds trace every build, one in 1000, or none,
+ * which costs what tracing with INFO disabled does. The log is written to
+ * target/benchmark.log. Both builders are called through a MethodHandle, so
+ * that they are called the same way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.logFile=target/benchmark.log")
+public class TracingBenchmark {
+
+	/**
+	 * The compile threshold of both cores, 0 to stay interpreted.
+	 */
+	@Param({ "0", "1" })
+	public int compileThreshold;
+
+	/**
+	 * How the woven core traces: every build, sampled or off.
+	 */
+	@Param({ "every", "sampled", "off" })
+	public String tracing;
+
+	private MethodHandle woven;
+
+	private MethodHandle unwoven;
+
+	@Setup
+	public void setUp() throws Throwable {
+		TracingAspect.setEnabled(!"off".equals(tracing));
+		TracingAspect.setSampleRate("sampled".equals(tracing) ? 1000 : 1);
+		woven = builderOf(EasyBuilder.class);
+		unwoven = builderOf(UnwovenCore.newLoader().loadClass(EasyBuilder.class.getName()));
+	}
+
+	/**
+	 * @return build() of a template that sets two fields and calls a method,
+	 *         from the given core
+	 */
+	private MethodHandle builderOf(Class<?> builderClass) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		lookup.findStatic(builderClass, "setCompileThreshold", MethodType.methodType(Void.TYPE, Integer.TYPE)).invoke(compileThreshold);
+		Object builder = lookup.findConstructor(builderClass, MethodType.methodType(Void.TYPE, Class.class)).invoke(Traced.class);
+		MethodHandle setField = lookup.findVirtual(builderClass, "setField", MethodType.methodType(builderClass, String.class, Object.class));
+		setField.invoke(builder, "name", "name");
+		setField.invoke(builder, "count", Integer.valueOf(1));
+		lookup.findVirtual(builderClass, "invokeMethod", MethodType.methodType(builderClass, String.class, Object[].class)).invoke(builder, "count",
+				new Object[] { Integer.valueOf(2) });
+		lookup.findVirtual(builderClass, "asTemplate", MethodType.methodType(builderClass)).invoke(builder);
+		return lookup.findVirtual(builderClass, "build", MethodType.methodType(Object.class)).bindTo(builder);
+	}
+
+	@Benchmark
+	public Object woven() throws Throwable {
+		return (Object) woven.invokeExact();
+	}
+
+	@Benchmark
+	public Object unwoven() throws Throwable {
+		return (Object) unwoven.invokeExact();
+	}
+}
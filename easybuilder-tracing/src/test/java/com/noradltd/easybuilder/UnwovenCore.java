@@ -0,0 +1,91 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+
+import org.objenesis.Objenesis;
+
+/**
+ * Finds the classes of the core jar behind the woven copy of them that this
+ * module is made of. Both are on the test class path, the woven copy first.
+ */
+final class UnwovenCore {
+
+	private static final String BUILDER = "com/noradltd/easybuilder/EasyBuilder.class";
+
+	private UnwovenCore() {
+	}
+
+	/**
+	 * @return A class loader that sees the unwoven core and Objenesis, but
+	 *         neither AspectJ nor the woven copy
+	 */
+	static ClassLoader newLoader() throws IOException {
+		return new URLClassLoader(new URL[] { location(), Objenesis.class.getProtectionDomain().getCodeSource().getLocation() },
+				ClassLoader.getPlatformClassLoader());
+	}
+
+	/**
+	 * @return The root of the unwoven core, a directory or a jar
+	 */
+	static URL location() throws IOException {
+		Enumeration<URL> copies = UnwovenCore.class.getClassLoader().getResources(BUILDER);
+		while (copies.hasMoreElements()) {
+			URL copy = copies.nextElement();
+			if (!isWoven(copy)) {
+				String root = copy.toString();
+				root = root.substring(0, root.length() - BUILDER.length());
+				if (root.startsWith("jar:")) {
+					root = root.substring("jar:".length(), root.length() - "!/".length());
+				}
+				return new URL(root);
+			}
+		}
+		throw new IllegalStateException("The unwoven core is not on the class path");
+	}
+
+	/**
+	 * @return true if the class file refers to the TracingAspect
+	 */
+	static boolean isWoven(URL classFile) throws IOException {
+		InputStream in = classFile.openStream();
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				bytes.write(buffer, 0, read);
+			}
+			return new String(bytes.toByteArray(), "ISO-8859-1").contains("com/noradltd/easybuilder/TracingAspect");
+		} finally {
+			in.close();
+		}
+	}
+}
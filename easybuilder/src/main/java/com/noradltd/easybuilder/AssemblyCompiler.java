@@ -0,0 +1,328 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+import com.noradltd.easybuilder.EasyBuilder.InstantiateInstruction;
+
+/**
+ * Turns a list of assembly instructions into a single MethodHandle. Each
+ * instruction compiles itself to a step of (Object)void with its field,
+ * method and arguments already bound, to a step of (Object, int)void if it
+ * depends on the index of the build, or to a step of (BuildContext)void if it
+ * needs more of the build than that. Every step is adapted to take the
+ * BuildContext, and the steps are then folded together so that the JIT sees
+ * one straight-line sequence instead of a loop over instructions.
+ */
+final class AssemblyCompiler {
+
+	static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	/**
+	 * The type of a compiled step, it applies an instruction to an instance.
+	 */
+	static final MethodType STEP = MethodType.methodType(Void.TYPE, Object.class);
+
+	/**
+	 * The type of a step that also takes the index of the build.
+	 */
+	static final MethodType INDEXED_STEP = MethodType.methodType(Void.TYPE, Object.class, Integer.TYPE);
+
+	/**
+	 * The type of a step that works on the whole context of the build.
+	 */
+	static final MethodType CONTEXT_STEP = MethodType.methodType(Void.TYPE, BuildContext.class);
+
+	/**
+	 * A step that does nothing.
+	 */
+	static final MethodHandle NOOP = MethodHandles.empty(STEP);
+
+	private static final MethodHandle CONTEXT_NOOP = MethodHandles.empty(CONTEXT_STEP);
+
+	private static final MethodHandle INSTANCE = findGetter("instance", Object.class);
+
+	private static final MethodHandle INDEX = findGetter("index", Integer.TYPE);
+
+	private static final MethodHandle NEW_CONTEXT = findConstructor(MethodType.methodType(Void.TYPE, Class.class, Object.class));
+
+	private static final MethodHandle PUT_RESULT = findVirtual("putResult", MethodType.methodType(Void.TYPE, String.class, Object.class));
+
+	private static final MethodHandle INITIALIZATION_FAILURE = findStatic("initializationFailure",
+			MethodType.methodType(Object.class, String.class, Exception.class));
+
+	private static final MethodHandle INVOCATION_FAILURE = findStatic("invocationFailure",
+			MethodType.methodType(Void.TYPE, Throwable.class, Object.class));
+
+	private AssemblyCompiler() {
+	}
+
+	/**
+	 * Compiles the instructions of a builder. The instructions must already be
+	 * in execution order, as preCompile leaves them.
+	 * 
+	 * @param instructions
+	 *            The ordered assembly instructions
+	 * @param clazz
+	 *            The class being built
+	 * @return The compiled instructions
+	 */
+	static CompiledAssembly compile(List<AssemblyInstruction> instructions, Class<?> clazz) {
+		MethodHandle instantiation = null;
+		InstantiateInstruction instantiator = null;
+		List<MethodHandle> steps = new ArrayList<MethodHandle>();
+		List<AssemblyInstruction> stepped = new ArrayList<AssemblyInstruction>();
+		Iterator<AssemblyInstruction> itr = instructions.iterator();
+		while (itr.hasNext()) {
+			AssemblyInstruction instruction = itr.next();
+			if (instruction instanceof InstantiateInstruction) {
+				if (instantiation == null) {
+					instantiator = (InstantiateInstruction) instruction;
+					instantiation = instantiator.compileInstantiation(clazz);
+				}
+			} else {
+				steps.add(contextual(instruction.compile(clazz)));
+				stepped.add(instruction);
+			}
+		}
+		if (instantiation == null) {
+			instantiation = MethodHandles.constant(Object.class, null);
+		}
+		return new CompiledAssembly(instantiation, sequence(steps, 0, steps.size()), clazz, instantiator,
+				steps.toArray(new MethodHandle[steps.size()]), stepped.toArray(new AssemblyInstruction[stepped.size()]));
+	}
+
+	/**
+	 * Joins an instantiation and an assembly, building index 0.
+	 * 
+	 * @param instantiation
+	 *            A MethodHandle of ()Object
+	 * @param assembler
+	 *            A MethodHandle of (BuildContext)void
+	 * @param clazz
+	 *            The class being built
+	 * @return A MethodHandle of ()Object that creates an instance, assembles
+	 *         it in a context of its own, and returns it
+	 */
+	static MethodHandle join(MethodHandle instantiation, MethodHandle assembler, Class<?> clazz) {
+		MethodHandle context = MethodHandles.filterReturnValue(instantiation, MethodHandles.insertArguments(NEW_CONTEXT, 0, clazz));
+		return MethodHandles.filterReturnValue(context, MethodHandles.foldArguments(INSTANCE, assembler));
+	}
+
+	/**
+	 * Adapts a step to take the context of the build, handing it the parts
+	 * of the context it asks for.
+	 */
+	private static MethodHandle contextual(MethodHandle step) {
+		MethodHandle rval = step;
+		if (STEP.equals(step.type())) {
+			rval = MethodHandles.filterArguments(step, 0, INSTANCE);
+		} else if (INDEXED_STEP.equals(step.type())) {
+			rval = MethodHandles.permuteArguments(MethodHandles.filterArguments(step, 0, INSTANCE, INDEX), CONTEXT_STEP, 0, 0);
+		}
+		return rval;
+	}
+
+	/**
+	 * Adapts a handle of (Object)Object, a method bound to everything but
+	 * its receiver, to a step that keeps what it returns as the result of
+	 * methodName.
+	 */
+	static MethodHandle keepingResult(String methodName, MethodHandle method) {
+		MethodHandle put = MethodHandles.insertArguments(PUT_RESULT, 1, methodName);
+		MethodHandle result = MethodHandles.filterArguments(method, 0, INSTANCE);
+		return MethodHandles.permuteArguments(MethodHandles.filterArguments(put, 1, result), CONTEXT_STEP, 0, 0);
+	}
+
+	/**
+	 * Folds steps of (Object)void into one step of (Object)void, for
+	 * instructions that carry out several writes, see BulkFieldInstruction.
+	 */
+	static MethodHandle bulk(List<MethodHandle> steps) {
+		return steps.isEmpty() ? NOOP : sequence(steps, 0, steps.size());
+	}
+
+	/**
+	 * Folds steps into one step that runs them in order. The fold is balanced
+	 * so that the depth of the resulting handle, and what the JIT has to
+	 * inline, grows with the log of the number of steps.
+	 */
+	private static MethodHandle sequence(List<MethodHandle> steps, int from, int to) {
+		MethodHandle rval;
+		if (to - from == 0) {
+			rval = CONTEXT_NOOP;
+		} else if (to - from == 1) {
+			rval = steps.get(from);
+		} else {
+			int middle = (from + to) >>> 1;
+			rval = MethodHandles.foldArguments(sequence(steps, middle, to), sequence(steps, from, middle));
+		}
+		return rval;
+	}
+
+	/**
+	 * Adapts a constructor, or any handle that produces the instance, to
+	 * ()Object. Exceptions are wrapped the way BasicInstantiateInstruction
+	 * wraps them.
+	 */
+	static MethodHandle instantiation(MethodHandle constructor, Class<?> clazz) {
+		MethodHandle failure = MethodHandles.insertArguments(INITIALIZATION_FAILURE, 0, clazz.getName());
+		return MethodHandles.catchException(constructor.asType(MethodType.methodType(Object.class)), Exception.class, failure);
+	}
+
+	/**
+	 * Adapts a method handle that has all but its receiver bound to one of
+	 * (Object)Object. Anything the method throws is wrapped the way
+	 * Method.invoke would wrap it, and then the way
+	 * MethodInvocationInstruction wraps that.
+	 */
+	static MethodHandle invocation(MethodHandle method) {
+		MethodType type = MethodType.methodType(Object.class, Object.class);
+		return MethodHandles.catchException(method.asType(type), Throwable.class,
+				INVOCATION_FAILURE.asType(MethodType.methodType(Object.class, Throwable.class, Object.class)));
+	}
+
+	/**
+	 * Binds a value to a field setter of (Object, type)void.
+	 * 
+	 * @param setter
+	 *            The setter of the field
+	 * @param fieldType
+	 *            The declared type of the field
+	 * @param valueType
+	 *            The type of value, a primitive type if it is to be written as
+	 *            one
+	 * @param value
+	 *            The value, wrapped when it is primitive
+	 * @return A step that writes value, or null when value can not be written
+	 *         to the field. In that case the instruction should fail when it
+	 *         runs, as it would when interpreted.
+	 */
+	static MethodHandle bindWrite(MethodHandle setter, Class<?> fieldType, Class<?> valueType, Object value) {
+		MethodHandle typed = setter;
+		if (fieldType.isPrimitive()) {
+			Class<?> primitiveType = MethodType.methodType(valueType).unwrap().returnType();
+			if (!primitiveType.isPrimitive()) {
+				return null;
+			}
+			try {
+				typed = setter.asType(MethodType.methodType(Void.TYPE, Object.class, primitiveType));
+			} catch (WrongMethodTypeException wmte) {
+				return null;
+			}
+		} else if (!fieldType.isInstance(value)) {
+			return null;
+		}
+		return MethodHandles.insertArguments(typed, 1, value);
+	}
+
+	/**
+	 * Binds an instruction's own apply(Object, Class) method as a step, for
+	 * instructions that can not be compiled any further.
+	 */
+	static MethodHandle applying(Class<?> owner, Object instruction, Class<?> clazz) {
+		try {
+			MethodHandle apply = lookup.findVirtual(owner, "apply", MethodType.methodType(Void.TYPE, Object.class, Class.class));
+			return MethodHandles.insertArguments(apply.bindTo(instruction), 1, clazz);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	/**
+	 * Binds an instruction's own invoke(BuildContext) method as a step, for
+	 * instructions that work on the whole context of each build.
+	 */
+	static MethodHandle applying(Class<?> owner, Object instruction) {
+		try {
+			return lookup.findVirtual(owner, "invoke", CONTEXT_STEP).bindTo(instruction);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	/**
+	 * Passes on what a compiled handle threw, the way the interpreter would
+	 * have let it escape.
+	 */
+	static RuntimeException rethrow(Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new RuntimeException("", t);
+	}
+
+	static Object initializationFailure(String className, Exception e) {
+		throw new RuntimeException(new StringBuffer("Initalization Exception: EasyBuilder failed to instantiate the class ").append(className)
+				.toString(), e);
+	}
+
+	static void invocationFailure(Throwable t, Object instance) {
+		throw new RuntimeException("", new InvocationTargetException(t));
+	}
+
+	private static MethodHandle findGetter(String name, Class<?> type) {
+		try {
+			return lookup.findGetter(BuildContext.class, name, type);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	private static MethodHandle findConstructor(MethodType type) {
+		try {
+			return lookup.findConstructor(BuildContext.class, type);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	private static MethodHandle findVirtual(String name, MethodType type) {
+		try {
+			return lookup.findVirtual(BuildContext.class, name, type);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	private static MethodHandle findStatic(String name, MethodType type) {
+		try {
+			return lookup.findStatic(AssemblyCompiler.class, name, type);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+}
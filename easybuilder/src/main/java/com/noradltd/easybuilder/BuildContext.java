@@ -0,0 +1,104 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a single build. Keeping it out of the builder lets any number
+ * of builds run from one builder at the same time.
+ */
+final class BuildContext {
+
+	/**
+	 * The class being built.
+	 */
+	final Class<?> clazz;
+
+	/**
+	 * The instance being assembled, null until it has been instantiated.
+	 */
+	Object instance;
+
+	/**
+	 * The position of the instance within a batch, see
+	 * EasyBuilder.buildInto(Object[]). A single build is index 0.
+	 */
+	int index;
+
+	/**
+	 * The value each method invoked so far has returned, by method name.
+	 * Created by the first method that returns one.
+	 */
+	private Map<String, Object> results = null;
+
+	BuildContext(Class<?> clazz_p, Object instance_p) {
+		this(clazz_p, instance_p, 0);
+	}
+
+	BuildContext(Class<?> clazz_p, Object instance_p, int index_p) {
+		clazz = clazz_p;
+		instance = instance_p;
+		index = index_p;
+	}
+
+	/**
+	 * Readies the context for the next build of a batch: no instance, and no
+	 * results left by the build before it.
+	 */
+	void reset(int index_p) {
+		instance = null;
+		index = index_p;
+		if (results != null) {
+			results.clear();
+		}
+	}
+
+	/**
+	 * Keeps the value a method returned for later instructions. A method
+	 * invoked again replaces its earlier value.
+	 */
+	void putResult(String methodName, Object result) {
+		if (results == null) {
+			results = new HashMap<String, Object>();
+		}
+		results.put(methodName, result);
+	}
+
+	/**
+	 * @return true if the method has returned a value during this build
+	 */
+	boolean hasResult(String methodName) {
+		return results != null && results.containsKey(methodName);
+	}
+
+	/**
+	 * @return The value the method last returned during this build, null if
+	 *         it has not
+	 */
+	Object getResult(String methodName) {
+		return (results == null) ? null : results.get(methodName);
+	}
+}
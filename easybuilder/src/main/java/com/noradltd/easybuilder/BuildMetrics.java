@@ -0,0 +1,308 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Times builds, each instruction by its kind and each build by the class
+ * built, and publishes the timings over JMX together with the hit rates of
+ * MetadataRegistry and InstantiatorRegistry, see BuildMetricsMXBean.
+ * 
+ * Measuring is off unless the <code>easybuilder.metrics</code> system
+ * property is true or setEnabled(true) is called; until then a build only
+ * reads one volatile flag. Once on, every instruction costs a call to
+ * <code>System.nanoTime()</code> and a few LongAdder updates, which threads
+ * make without contending or locking, see LatencyTimer.
+ * 
+ * Instructions are timed under the kind a builder was asked for, whatever
+ * PlanOptimizer made of them: a write specialized to a primitive kind, or
+ * fused with its neighbours into a BulkFieldInstruction, is timed as a
+ * SetFieldInstruction, and a setter specialized to a primitive kind as a
+ * SetterInstruction. A fused write counts once for each field it writes,
+ * each with an equal share of the time. A promoted builder is timed step by
+ * step in the same way, see CompiledAssembly.assembleMeasured.
+ * 
+ * Classes are told apart by name only, so those of the same name from
+ * different class loaders are timed together.
+ */
+public final class BuildMetrics {
+
+	public static final String OBJECT_NAME = "com.noradltd.easybuilder:type=BuildMetrics";
+
+	/**
+	 * Read by every build, see EasyBuilder.assemble.
+	 */
+	static volatile boolean enabled = false;
+
+	private static final LatencyTimer builds = new LatencyTimer();
+
+	private static final ConcurrentHashMap<String, LatencyTimer> instructionTimers = new ConcurrentHashMap<String, LatencyTimer>();
+
+	private static final ConcurrentHashMap<String, LatencyTimer> classTimers = new ConcurrentHashMap<String, LatencyTimer>();
+
+	private static final ClassValue<LatencyTimer> byInstruction = new ClassValue<LatencyTimer>() {
+		@Override
+		protected LatencyTimer computeValue(Class<?> type) {
+			return timerOf(instructionTimers, kindOf(type));
+		}
+	};
+
+	private static final ClassValue<LatencyTimer> byClass = new ClassValue<LatencyTimer>() {
+		@Override
+		protected LatencyTimer computeValue(Class<?> type) {
+			return timerOf(classTimers, type.getName());
+		}
+	};
+
+	private static final BuildMetricsMXBean bean = new BuildMetricsMXBean() {
+
+		public boolean isEnabled() {
+			return BuildMetrics.isEnabled();
+		}
+
+		public void setEnabled(boolean enabled_p) {
+			BuildMetrics.setEnabled(enabled_p);
+		}
+
+		public TimingStatistics getBuildTimings() {
+			return BuildMetrics.getBuildTimings();
+		}
+
+		public Map<String, TimingStatistics> getInstructionTimings() {
+			return BuildMetrics.getInstructionTimings();
+		}
+
+		public Map<String, TimingStatistics> getClassTimings() {
+			return BuildMetrics.getClassTimings();
+		}
+
+		public double getMetadataHitRate() {
+			return MetadataRegistry.getHitRate();
+		}
+
+		public long getMetadataHitCount() {
+			return MetadataRegistry.getHitCount();
+		}
+
+		public long getMetadataMissCount() {
+			return MetadataRegistry.getMissCount();
+		}
+
+		public long getMetadataEvictionCount() {
+			return MetadataRegistry.getEvictionCount();
+		}
+
+		public int getMetadataCacheSize() {
+			return MetadataRegistry.getSize();
+		}
+
+		public double getInstantiatorHitRate() {
+			long hits = InstantiatorRegistry.getHitCount();
+			long total = hits + InstantiatorRegistry.getMissCount();
+			return (total == 0) ? 1.0 : (double) hits / total;
+		}
+
+		public long getPromotionCount() {
+			return EasyBuilder.getPromotionCount();
+		}
+
+		public void reset() {
+			BuildMetrics.reset();
+		}
+	};
+
+	private static volatile boolean registered = false;
+
+	static {
+		if (Boolean.getBoolean("easybuilder.metrics")) {
+			setEnabled(true);
+		}
+	}
+
+	private BuildMetrics() {
+	}
+
+	/**
+	 * @return true if builds are being measured
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns the measuring of builds on or off. The first time it is turned on
+	 * the MXBean is registered with the platform MBean server; should that
+	 * fail, for instance because a security manager forbids it, builds are
+	 * measured all the same.
+	 * 
+	 * @param enabled_p
+	 *            true to measure builds
+	 */
+	public static void setEnabled(boolean enabled_p) {
+		if (enabled_p) {
+			register();
+		}
+		enabled = enabled_p;
+	}
+
+	/**
+	 * Registers the MXBean under OBJECT_NAME unless it already is.
+	 */
+	public static synchronized void register() {
+		if (!registered) {
+			registered = true;
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(OBJECT_NAME);
+				if (!server.isRegistered(name)) {
+					server.registerMBean(bean, name);
+				}
+			} catch (JMException e) {
+				// the metrics remain readable from here
+			} catch (SecurityException e) {
+				// the metrics remain readable from here
+			}
+		}
+	}
+
+	/**
+	 * @return How long whole builds took
+	 */
+	public static TimingStatistics getBuildTimings() {
+		return builds.snapshot();
+	}
+
+	/**
+	 * @return How long each kind of instruction took, by the simple name of
+	 *         its class
+	 */
+	public static Map<String, TimingStatistics> getInstructionTimings() {
+		return snapshot(instructionTimers);
+	}
+
+	/**
+	 * @return How long builds took, by the name of the class built
+	 */
+	public static Map<String, TimingStatistics> getClassTimings() {
+		return snapshot(classTimers);
+	}
+
+	/**
+	 * Clears every timing. Timings being recorded meanwhile may be kept in
+	 * part.
+	 */
+	public static void reset() {
+		builds.reset();
+		resetAll(instructionTimers);
+		resetAll(classTimers);
+	}
+
+	/**
+	 * Records how long one instruction took.
+	 * 
+	 * @param instruction
+	 *            The instruction, interpreted or compiled
+	 * @param nanos
+	 *            How long it took
+	 */
+	static void recordInstruction(EasyBuilder.AssemblyInstruction instruction, long nanos) {
+		LatencyTimer timer = byInstruction.get(instruction.getClass());
+		if (instruction instanceof EasyBuilder.BulkFieldInstruction) {
+			timer.record(nanos, ((EasyBuilder.BulkFieldInstruction) instruction).writes.length);
+		} else {
+			timer.record(nanos);
+		}
+	}
+
+	/**
+	 * @return The name an instruction class is timed under: the kind of
+	 *         instruction it stands for, see above
+	 */
+	static String kindOf(Class<?> type) {
+		while (type.isAnonymousClass()) {
+			type = type.getSuperclass();
+		}
+		String kind = type.getSimpleName();
+		if (EasyBuilder.FieldInstruction.class.isAssignableFrom(type) || EasyBuilder.BulkFieldInstruction.class.equals(type)) {
+			kind = "SetFieldInstruction";
+		} else if (EasyBuilder.AbstractSetterInstruction.class.isAssignableFrom(type)) {
+			kind = "SetterInstruction";
+		} else if (EasyBuilder.IndexedSetFieldInstruction.class.isAssignableFrom(type)) {
+			kind = "IndexedSetFieldInstruction";
+		}
+		return kind;
+	}
+
+	/**
+	 * Records how long one build took.
+	 * 
+	 * @param clazz
+	 *            The class built
+	 * @param nanos
+	 *            How long it took
+	 */
+	static void recordBuild(Class<?> clazz, long nanos) {
+		builds.record(nanos);
+		byClass.get(clazz).record(nanos);
+	}
+
+	private static LatencyTimer timerOf(ConcurrentHashMap<String, LatencyTimer> timers, String name) {
+		LatencyTimer timer = timers.get(name);
+		if (timer == null) {
+			LatencyTimer created = new LatencyTimer();
+			timer = timers.putIfAbsent(name, created);
+			if (timer == null) {
+				timer = created;
+			}
+		}
+		return timer;
+	}
+
+	private static Map<String, TimingStatistics> snapshot(Map<String, LatencyTimer> timers) {
+		Map<String, TimingStatistics> snapshot = new TreeMap<String, TimingStatistics>();
+		for (Iterator<Map.Entry<String, LatencyTimer>> entries = timers.entrySet().iterator(); entries.hasNext();) {
+			Map.Entry<String, LatencyTimer> entry = entries.next();
+			TimingStatistics statistics = entry.getValue().snapshot();
+			if (statistics.getCount() > 0) {
+				snapshot.put(entry.getKey(), statistics);
+			}
+		}
+		return snapshot;
+	}
+
+	private static void resetAll(Map<String, LatencyTimer> timers) {
+		for (Iterator<LatencyTimer> values = timers.values().iterator(); values.hasNext();) {
+			values.next().reset();
+		}
+	}
+}
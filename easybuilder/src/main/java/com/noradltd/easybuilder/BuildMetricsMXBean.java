@@ -0,0 +1,92 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.Map;
+
+/**
+ * The management interface BuildMetrics registers with the platform MBean
+ * server, as <code>com.noradltd.easybuilder:type=BuildMetrics</code>. All
+ * durations are in nanoseconds.
+ */
+public interface BuildMetricsMXBean {
+
+	/**
+	 * @return true if builds are being measured
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Turns the measuring of builds on or off.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return How long whole builds took, whatever was built
+	 */
+	TimingStatistics getBuildTimings();
+
+	/**
+	 * @return How long each kind of instruction took, by the simple name of
+	 *         the instruction class a builder was asked for. Optimized and
+	 *         compiled instructions are timed as the kind they stand for,
+	 *         see BuildMetrics.
+	 */
+	Map<String, TimingStatistics> getInstructionTimings();
+
+	/**
+	 * @return How long builds took, by the name of the class built
+	 */
+	Map<String, TimingStatistics> getClassTimings();
+
+	/**
+	 * @return The share of metadata lookups answered from the registry
+	 */
+	double getMetadataHitRate();
+
+	long getMetadataHitCount();
+
+	long getMetadataMissCount();
+
+	long getMetadataEvictionCount();
+
+	int getMetadataCacheSize();
+
+	/**
+	 * @return The share of instantiator lookups answered by an existing
+	 *         instantiator, one if there have been none
+	 */
+	double getInstantiatorHitRate();
+
+	/**
+	 * @return The number of builders promoted to compiled instructions
+	 */
+	long getPromotionCount();
+
+	/**
+	 * Clears the timings. The cache and promotion counts are kept, as they
+	 * belong to the registries.
+	 */
+	void reset();
+}
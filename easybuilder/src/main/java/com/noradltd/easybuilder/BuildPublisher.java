@@ -0,0 +1,218 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+/**
+ * Publishes the instances of a builder to reactive subscribers, see
+ * EasyBuilder.publisher(int, Executor, int). Each subscriber receives its own
+ * n new instances, indexed as buildMany(int) indexes them. Instances are
+ * built only when a subscriber has asked for them, so a slow subscriber never
+ * has more than its outstanding demand waiting on it.
+ * 
+ * Signals are delivered on the executor, one at a time per subscription, as
+ * SubmissionPublisher delivers them. A drain delivers at most batchSize
+ * instances before it hands the executor back and queues itself again, so
+ * one subscriber with a large demand does not hold a thread indefinitely.
+ */
+public final class BuildPublisher implements Flow.Publisher<Object> {
+
+	private final EasyBuilder builder;
+
+	private final AssemblyInstruction[] plan;
+
+	private final CompiledAssembly compiled;
+
+	private final int count;
+
+	private final Executor executor;
+
+	private final int batchSize;
+
+	BuildPublisher(EasyBuilder builder_p, AssemblyInstruction[] plan_p, CompiledAssembly compiled_p, int count_p, Executor executor_p, int batchSize_p) {
+		if (batchSize_p <= 0) {
+			throw new IllegalArgumentException(new StringBuffer("batchSize must be positive: ").append(batchSize_p).toString());
+		}
+		builder = builder_p;
+		plan = plan_p;
+		compiled = compiled_p;
+		count = count_p;
+		executor = executor_p;
+		batchSize = batchSize_p;
+	}
+
+	public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("subscriber");
+		}
+		BuildSubscription subscription = new BuildSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		subscription.schedule();
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("BuildPublisher[").append("count::").append(count).append(", batchSize::").append(batchSize).append(", builder::")
+				.append(builder).append("]").toString();
+	}
+
+	/**
+	 * The demand of one subscriber. Whichever thread finds the subscription
+	 * idle queues a drain; requests that arrive while it runs are picked up
+	 * by the same drain.
+	 */
+	private final class BuildSubscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super Object> subscriber;
+
+		private final AtomicLong demand = new AtomicLong();
+
+		/**
+		 * Counts the reasons to drain; non-zero while a drain is queued or
+		 * running.
+		 */
+		private final AtomicInteger work = new AtomicInteger();
+
+		private volatile boolean cancelled = false;
+
+		private volatile Throwable error = null;
+
+		/**
+		 * The next index to build, touched only by the drain.
+		 */
+		private int index = 0;
+
+		BuildSubscription(Flow.Subscriber<? super Object> subscriber_p) {
+			subscriber = subscriber_p;
+		}
+
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException(new StringBuffer("non-positive request: ").append(n).toString());
+			} else {
+				long current;
+				long next;
+				do {
+					current = demand.get();
+					next = current + n;
+					if (next < 0) {
+						next = Long.MAX_VALUE;
+					}
+				} while (!demand.compareAndSet(current, next));
+			}
+			schedule();
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+
+		void schedule() {
+			if (!cancelled && work.getAndIncrement() == 0) {
+				dispatch();
+			}
+		}
+
+		/**
+		 * Queues the drain. An executor that refuses it ends the
+		 * subscription, since nothing else would ever drain it.
+		 */
+		private void dispatch() {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException ree) {
+				cancelled = true;
+				work.set(0);
+				subscriber.onError(ree);
+			}
+		}
+
+		public void run() {
+			int missed = 1;
+			while (true) {
+				if (terminated()) {
+					return;
+				}
+				long requested = demand.get();
+				int emitted = 0;
+				while (emitted < requested && emitted < batchSize && index < count && !cancelled) {
+					Object instance;
+					try {
+						instance = builder.buildAt(plan, compiled, index++);
+					} catch (RuntimeException re) {
+						cancelled = true;
+						subscriber.onError(re);
+						return;
+					}
+					subscriber.onNext(instance);
+					emitted++;
+				}
+				if (emitted > 0 && requested != Long.MAX_VALUE) {
+					requested = demand.addAndGet(-emitted);
+				}
+				if (terminated()) {
+					return;
+				}
+				if (emitted == batchSize && requested > 0 && !cancelled) {
+					dispatch();
+					return;
+				}
+				missed = work.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Delivers a terminal signal if one is due.
+		 * 
+		 * @return true once the subscription is over
+		 */
+		private boolean terminated() {
+			if (cancelled) {
+				return true;
+			}
+			Throwable failure = error;
+			if (failure != null) {
+				cancelled = true;
+				subscriber.onError(failure);
+				return true;
+			}
+			if (index >= count) {
+				cancelled = true;
+				subscriber.onComplete();
+				return true;
+			}
+			return false;
+		}
+	}
+}
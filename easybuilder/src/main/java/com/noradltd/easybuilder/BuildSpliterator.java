@@ -0,0 +1,114 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+/**
+ * Builds a range of indexes one instance at a time, as a stream consumes
+ * them, see EasyBuilder.stream(int). Splitting hands half of the remaining
+ * indexes to a new spliterator over the same plan, so a parallel stream
+ * builds disjoint ranges without sharing any state but the immutable plan.
+ */
+final class BuildSpliterator implements Spliterator<Object> {
+
+	private final EasyBuilder builder;
+
+	private final AssemblyInstruction[] plan;
+
+	/**
+	 * The compiled instructions, or null to interpret the plan.
+	 */
+	private final CompiledAssembly compiled;
+
+	/**
+	 * Applied to each instance before it is passed on, may be null.
+	 */
+	private final ObjIntConsumer<Object> customizer;
+
+	/**
+	 * The next index to build.
+	 */
+	private int index;
+
+	/**
+	 * One past the last index to build.
+	 */
+	private final int fence;
+
+	BuildSpliterator(EasyBuilder builder_p, AssemblyInstruction[] plan_p, CompiledAssembly compiled_p, ObjIntConsumer<Object> customizer_p, int index_p,
+			int fence_p) {
+		builder = builder_p;
+		plan = plan_p;
+		compiled = compiled_p;
+		customizer = customizer_p;
+		index = index_p;
+		fence = fence_p;
+	}
+
+	public boolean tryAdvance(Consumer<? super Object> action) {
+		if (index < fence) {
+			action.accept(next());
+			return true;
+		}
+		return false;
+	}
+
+	public void forEachRemaining(Consumer<? super Object> action) {
+		while (index < fence) {
+			action.accept(next());
+		}
+	}
+
+	private Object next() {
+		int current = index++;
+		Object instance = builder.buildAt(plan, compiled, current);
+		if (customizer != null) {
+			customizer.accept(instance, current);
+		}
+		return instance;
+	}
+
+	public Spliterator<Object> trySplit() {
+		int lo = index;
+		int middle = (lo + fence) >>> 1;
+		if (lo >= middle) {
+			return null;
+		}
+		index = middle;
+		return new BuildSpliterator(builder, plan, compiled, customizer, lo, middle);
+	}
+
+	public long estimateSize() {
+		return fence - index;
+	}
+
+	public int characteristics() {
+		return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT | IMMUTABLE;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/**
+ * Everything EasyBuilder learns about a class: its fields, constructors,
+ * methods and the instantiator that bypasses its constructors. Each part is
+ * created the first time it is needed. The metadata of a class is held by
+ * the MetadataRegistry, which is the only place it is created.
+ */
+final class ClassMetadata {
+
+	/**
+	 * Identifies the class to the registry without holding on to it.
+	 */
+	final Key key;
+
+	/**
+	 * Set once the registry counts this metadata toward its size.
+	 */
+	volatile boolean tracked = false;
+
+	private final Class<?> clazz;
+
+	private volatile FieldIndex fieldIndex = null;
+
+	private volatile ConstructorResolver constructorResolver = null;
+
+	private volatile MethodResolver methodResolver = null;
+
+	private volatile ObjectInstantiator<?> instantiator = null;
+
+	ClassMetadata(Class<?> clazz_p, ReferenceQueue<Class<?>> queue) {
+		clazz = clazz_p;
+		key = new Key(clazz_p, queue);
+	}
+
+	FieldIndex getFieldIndex() {
+		FieldIndex rval = fieldIndex;
+		if (rval == null) {
+			synchronized (this) {
+				if (fieldIndex == null) {
+					fieldIndex = new FieldIndex(clazz);
+				}
+				rval = fieldIndex;
+			}
+		}
+		return rval;
+	}
+
+	ConstructorResolver getConstructorResolver() {
+		ConstructorResolver rval = constructorResolver;
+		if (rval == null) {
+			synchronized (this) {
+				if (constructorResolver == null) {
+					constructorResolver = new ConstructorResolver(clazz);
+				}
+				rval = constructorResolver;
+			}
+		}
+		return rval;
+	}
+
+	MethodResolver getMethodResolver() {
+		MethodResolver rval = methodResolver;
+		if (rval == null) {
+			synchronized (this) {
+				if (methodResolver == null) {
+					methodResolver = new MethodResolver(clazz);
+				}
+				rval = methodResolver;
+			}
+		}
+		return rval;
+	}
+
+	ObjectInstantiator<?> getInstantiator() {
+		ObjectInstantiator<?> rval = instantiator;
+		if (rval == null) {
+			synchronized (this) {
+				if (instantiator == null) {
+					instantiator = InstantiatorRegistry.newInstantiator(clazz);
+				}
+				rval = instantiator;
+			}
+		}
+		return rval;
+	}
+
+	/**
+	 * A weak reference to the class, stamped with the last time the
+	 * registry handed out its metadata.
+	 */
+	static final class Key extends WeakReference<Class<?>> {
+		volatile long lastUsed;
+
+		Key(Class<?> clazz_p, ReferenceQueue<Class<?>> queue) {
+			super(clazz_p, queue);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+/**
+ * The result of compiling a builder's instructions, see AssemblyCompiler.
+ * Instantiation and assembly are kept apart so that a builder can apply the
+ * compiled instructions to an instance it already holds.
+ */
+final class CompiledAssembly {
+
+	/**
+	 * A MethodHandle of ()Object.
+	 */
+	private final MethodHandle instantiation;
+
+	/**
+	 * A MethodHandle of (BuildContext)void.
+	 */
+	private final MethodHandle assembler;
+
+	private final Class<?> clazz;
+
+	/**
+	 * The instruction the instantiation was compiled from, null if there was
+	 * none.
+	 */
+	private final AssemblyInstruction instantiator;
+
+	/**
+	 * The steps folded into the assembler, each a MethodHandle of
+	 * (BuildContext)void, and the instruction each was compiled from. Kept
+	 * so that BuildMetrics can time the steps one by one.
+	 */
+	private final MethodHandle[] steps;
+
+	private final AssemblyInstruction[] instructions;
+
+	CompiledAssembly(MethodHandle instantiation_p, MethodHandle assembler_p, Class<?> clazz_p, AssemblyInstruction instantiator_p,
+			MethodHandle[] steps_p, AssemblyInstruction[] instructions_p) {
+		instantiation = instantiation_p;
+		assembler = assembler_p;
+		clazz = clazz_p;
+		instantiator = instantiator_p;
+		steps = steps_p;
+		instructions = instructions_p;
+	}
+
+	/**
+	 * @return A new instance of the class being built
+	 */
+	Object instantiate() {
+		try {
+			return (Object) instantiation.invokeExact();
+		} catch (Throwable t) {
+			throw AssemblyCompiler.rethrow(t);
+		}
+	}
+
+	/**
+	 * Applies every compiled instruction to the instance of a build.
+	 * 
+	 * @param context
+	 *            The build, with its instance already created
+	 */
+	void assemble(BuildContext context) {
+		try {
+			assembler.invokeExact(context);
+		} catch (Throwable t) {
+			throw AssemblyCompiler.rethrow(t);
+		}
+	}
+
+	/**
+	 * Instantiates, unless the build already has an instance, and assembles
+	 * as instantiate() and assemble(BuildContext) would, recording how long
+	 * each step took with BuildMetrics. The steps run one at a time rather
+	 * than folded together, so a measured build is somewhat slower than one
+	 * that is not.
+	 * 
+	 * @param context
+	 *            The build
+	 * @param start
+	 *            When the build started, by System.nanoTime()
+	 * @return When the last step ended
+	 */
+	long assembleMeasured(BuildContext context, long start) {
+		long mark = start;
+		if (context.instance == null) {
+			context.instance = instantiate();
+			if (instantiator != null) {
+				long now = System.nanoTime();
+				BuildMetrics.recordInstruction(instantiator, now - mark);
+				mark = now;
+			}
+		}
+		for (int idx = 0; idx < steps.length; idx++) {
+			try {
+				steps[idx].invokeExact(context);
+			} catch (Throwable t) {
+				throw AssemblyCompiler.rethrow(t);
+			}
+			long now = System.nanoTime();
+			BuildMetrics.recordInstruction(instructions[idx], now - mark);
+			mark = now;
+		}
+		return mark;
+	}
+
+	/**
+	 * @return A MethodHandle of ()Object that instantiates and assembles
+	 */
+	MethodHandle joined() {
+		return AssemblyCompiler.join(instantiation, assembler, clazz);
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * The compiled form of an EasyBuilder, see EasyBuilder.compile(). Every
+ * instruction has been resolved and bound ahead of time, and every call to
+ * build() creates and assembles a new instance.
+ */
+public final class CompiledBuilder {
+
+	private final Class<?> clazz;
+
+	/**
+	 * A MethodHandle of ()Object that creates and assembles an instance.
+	 */
+	private final MethodHandle assembly;
+
+	CompiledBuilder(Class<?> clazz_p, MethodHandle assembly_p) {
+		clazz = clazz_p;
+		assembly = assembly_p;
+	}
+
+	/**
+	 * Creates a new, initialized instance of the class to be built.
+	 * 
+	 * @return An initialized instance of the class to be built
+	 */
+	public Object build() {
+		try {
+			return (Object) assembly.invokeExact();
+		} catch (Throwable t) {
+			throw AssemblyCompiler.rethrow(t);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuilder("CompiledBuilder[").append("target::").append(clazz.getName()).append("]").toString();
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the constructors used to instantiate a class: the default
+ * constructor, and the one chosen for a list of arguments, see
+ * EasyBuilder.useAlternateConstructor. The constructors of the
+ * class are considered first and, if none of them accepts the arguments,
+ * those of each superclass in turn, up to but excluding Object. Overloads
+ * are chosen as Overloads describes.
+ * 
+ * The outcome is kept per class and signature, the runtime classes of the
+ * arguments, so the reflective search happens once for each signature. A
+ * signature that names classes the class's loader can not see is searched
+ * on each call instead, since keeping it would pin the loader that defined
+ * them. The resolver of a class is held by the MetadataRegistry.
+ */
+final class ConstructorResolver {
+
+	private final Class<?> clazz;
+
+	/**
+	 * The outcome of each visible signature resolved so far.
+	 */
+	private final Map<List<Class<?>>, Outcome> outcomes = new ConcurrentHashMap<List<Class<?>>, Outcome>();
+
+	/**
+	 * The default constructor, resolved on first use.
+	 */
+	private volatile DefaultConstructor defaultConstructor = null;
+
+	ConstructorResolver(Class<?> clazz_p) {
+		clazz = clazz_p;
+	}
+
+	/**
+	 * @param clazz
+	 *            The class to be instantiated
+	 * @return The shared resolver of clazz, held by the MetadataRegistry
+	 */
+	static ConstructorResolver of(Class<?> clazz) {
+		return MetadataRegistry.of(clazz).getConstructorResolver();
+	}
+
+	/**
+	 * Resolves the constructor that accepts args.
+	 * 
+	 * @param args
+	 *            The arguments to the constructor
+	 * @return A MethodHandle of (Object[])Object that spreads its argument
+	 *         over the constructor's parameters
+	 * @throws NoSuchMethodException
+	 *             No constructor accepts args, or several do equally well
+	 */
+	MethodHandle resolve(Object[] args) throws NoSuchMethodException {
+		List<Class<?>> signature = Arrays.asList(Overloads.signatureOf(args));
+		Outcome outcome = outcomes.get(signature);
+		if (outcome == null) {
+			Class<?>[] argTypes = signature.toArray(new Class<?>[signature.size()]);
+			outcome = find(argTypes);
+			if (Overloads.isVisibleFrom(clazz, argTypes)) {
+				outcomes.put(signature, outcome);
+			}
+		}
+		if (outcome.handle == null) {
+			throw new NoSuchMethodException(outcome.failure);
+		}
+		return outcome.handle;
+	}
+
+	/**
+	 * Resolves the default constructor of the class itself, the one
+	 * Class.newInstance would call.
+	 * 
+	 * @return The default constructor
+	 * @throws InstantiationException
+	 *             The class has no default constructor, or it can not be
+	 *             called, as Class.newInstance reports it
+	 */
+	DefaultConstructor getDefaultConstructor() throws InstantiationException {
+		DefaultConstructor resolved = defaultConstructor;
+		if (resolved == null) {
+			resolved = DefaultConstructor.of(clazz);
+			defaultConstructor = resolved;
+		}
+		if (resolved.handle == null) {
+			throw new InstantiationException(resolved.failure);
+		}
+		return resolved;
+	}
+
+	/**
+	 * Resolves, ahead of use, the default constructor and each constructor
+	 * the class declares, for arguments of exactly its parameter types, see
+	 * EasyBuilder.prewarm.
+	 * 
+	 * @return The number of constructors resolved
+	 */
+	int prewarm() {
+		try {
+			getDefaultConstructor();
+		} catch (InstantiationException ignored) {
+			// built through an alternate constructor, or bypassing them all
+		}
+		Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+		for (int idx = 0; idx < constructors.length; idx++) {
+			Class<?>[] paramTypes = constructors[idx].getParameterTypes();
+			Class<?>[] argTypes = new Class<?>[paramTypes.length];
+			for (int param = 0; param < paramTypes.length; param++) {
+				argTypes[param] = MethodType.methodType(paramTypes[param]).wrap().returnType();
+			}
+			List<Class<?>> signature = Arrays.asList(argTypes);
+			if (!outcomes.containsKey(signature)) {
+				outcomes.put(signature, find(argTypes));
+			}
+		}
+		return constructors.length;
+	}
+
+	private Outcome find(Class<?>[] argTypes) {
+		try {
+			Class<?> sourceClass = clazz;
+			while (sourceClass != null && !Object.class.equals(sourceClass)) {
+				Constructor<?> constructor = Overloads.select(Arrays.asList(sourceClass.getDeclaredConstructors()), argTypes);
+				if (constructor != null) {
+					return new Outcome(spreading(constructor), null);
+				}
+				sourceClass = sourceClass.getSuperclass();
+			}
+			return new Outcome(null, new StringBuffer("No constructor of ").append(clazz.getName()).append(" accepts ")
+					.append(Overloads.describe(argTypes)).toString());
+		} catch (NoSuchMethodException nsme) {
+			return new Outcome(null, nsme.getMessage());
+		} catch (IllegalAccessException iae) {
+			return new Outcome(null, iae.getMessage());
+		}
+	}
+
+	static MethodHandle spreading(Constructor<?> constructor) throws IllegalAccessException {
+		// a constructor we cannot open fails to unreflect, and is reported
+		constructor.trySetAccessible();
+		MethodHandle handle = AssemblyCompiler.lookup.unreflectConstructor(constructor);
+		int arity = constructor.getParameterCount();
+		return handle.asType(MethodType.genericMethodType(arity)).asSpreader(Object[].class, arity)
+				.asType(MethodType.methodType(Object.class, Object[].class));
+	}
+
+	/**
+	 * A default constructor, as a MethodHandle of ()Object for compiled
+	 * builders, and as a Supplier that calls it like a plain new expression
+	 * for interpreted ones. Like Class.newInstance, the Supplier passes on
+	 * whatever the constructor throws, checked or not.
+	 */
+	static final class DefaultConstructor {
+		final MethodHandle handle;
+		final Supplier<Object> supplier;
+		final String failure;
+
+		private DefaultConstructor(MethodHandle handle_p, Supplier<Object> supplier_p, String failure_p) {
+			handle = handle_p;
+			supplier = supplier_p;
+			failure = failure_p;
+		}
+
+		static DefaultConstructor of(Class<?> clazz) {
+			if (Modifier.isAbstract(clazz.getModifiers())) {
+				return new DefaultConstructor(null, null, new StringBuffer(clazz.getName()).append(" is abstract").toString());
+			}
+			Constructor<?> constructor;
+			MethodHandle handle;
+			try {
+				constructor = clazz.getDeclaredConstructor();
+				// a constructor we cannot open fails to unreflect, and is
+				// reported
+				constructor.trySetAccessible();
+				handle = AssemblyCompiler.lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+			} catch (NoSuchMethodException nsme) {
+				return new DefaultConstructor(null, null, new StringBuffer("No default constructor in ").append(clazz.getName()).toString());
+			} catch (IllegalAccessException iae) {
+				return new DefaultConstructor(null, null, iae.getMessage());
+			}
+			return new DefaultConstructor(handle, supplierOf(clazz, handle), null);
+		}
+
+		/**
+		 * Spins a Supplier whose get() is a new expression, where the class
+		 * is open to us. Anywhere else the Supplier invokes the handle.
+		 */
+		@SuppressWarnings("unchecked")
+		private static Supplier<Object> supplierOf(Class<?> clazz, final MethodHandle handle) {
+			try {
+				MethodHandles.Lookup caller = MethodHandles.privateLookupIn(clazz, AssemblyCompiler.lookup);
+				MethodHandle constructor = caller.findConstructor(clazz, MethodType.methodType(Void.TYPE));
+				CallSite site = LambdaMetafactory.metafactory(caller, "get", MethodType.methodType(Supplier.class),
+						MethodType.methodType(Object.class), constructor, MethodType.methodType(clazz));
+				return (Supplier<Object>) site.getTarget().invoke();
+			} catch (Throwable t) {
+				return new Supplier<Object>() {
+					public Object get() {
+						try {
+							return (Object) handle.invokeExact();
+						} catch (Throwable thrown) {
+							throw DefaultConstructor.<RuntimeException> passOn(thrown);
+						}
+					}
+				};
+			}
+		}
+
+		/**
+		 * Throws t unchanged, checked or not.
+		 */
+		@SuppressWarnings("unchecked")
+		private static <T extends Throwable> T passOn(Throwable t) throws T {
+			throw (T) t;
+		}
+	}
+
+	/**
+	 * A resolved constructor, or why there is none.
+	 */
+	private static final class Outcome {
+		final MethodHandle handle;
+		final String failure;
+
+		Outcome(MethodHandle handle_p, String failure_p) {
+			handle = handle_p;
+			failure = failure_p;
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/**
+ * The runtime support of the builders generated for classes annotated with
+ * EasyBuild. Generated builders write fields and call constructors and
+ * methods directly wherever the language lets them; this class supplies the
+ * rest: handles for the members they can not reach, resolved once when the
+ * builder is initialized, the overload selection and conversions of the
+ * dynamic builder, and its failures.
+ * 
+ * Only generated code is meant to call these methods.
+ */
+public final class EasyBuildSupport {
+
+	private static final MethodType SETTER = MethodType.methodType(Void.TYPE, Object.class, Object.class);
+
+	private EasyBuildSupport() {
+	}
+
+	//
+	// Resolution, once per generated builder
+	//
+
+	/**
+	 * Loads a type the generated builder can not name, a private nested
+	 * class for instance.
+	 * 
+	 * @param context
+	 *            The class being built, whose loader is used
+	 * @param binaryName
+	 *            The binary name of the type, as Class.getName reports it
+	 * @return The type
+	 */
+	public static Class<?> typeNamed(Class<?> context, String binaryName) {
+		try {
+			return Class.forName(binaryName, false, context.getClassLoader());
+		} catch (ClassNotFoundException cnfe) {
+			throw new IllegalStateException(cnfe);
+		}
+	}
+
+	/**
+	 * @param declaringClass
+	 *            The class that declares the field
+	 * @param fieldName
+	 *            The name of the field
+	 * @return A MethodHandle of (Object, Object)void that writes the field of
+	 *         its first argument, unwrapping the second for a primitive
+	 *         field. Final fields are written as Field.set writes them.
+	 */
+	public static MethodHandle fieldSetter(Class<?> declaringClass, String fieldName) {
+		try {
+			Field field = declaringClass.getDeclaredField(fieldName);
+			// a field we cannot open fails to unreflect, and is reported
+			field.trySetAccessible();
+			return AssemblyCompiler.lookup.unreflectSetter(field).asType(SETTER);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	/**
+	 * @param clazz
+	 *            The class being built
+	 * @param paramTypes
+	 *            The parameter types of the constructor
+	 * @return A MethodHandle of (Object[])Object that spreads its argument
+	 *         over the constructor's parameters
+	 */
+	public static MethodHandle constructor(Class<?> clazz, Class<?>... paramTypes) {
+		try {
+			return ConstructorResolver.spreading(clazz.getDeclaredConstructor(paramTypes));
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	/**
+	 * @param declaringClass
+	 *            The class that declares the method
+	 * @param methodName
+	 *            The name of the method
+	 * @param paramTypes
+	 *            The parameter types of the method
+	 * @return A MethodHandle of (Object, Object[])Object that calls the
+	 *         method on its first argument, ignored by a static method, with
+	 *         the second spread over the parameters
+	 */
+	public static MethodHandle method(Class<?> declaringClass, String methodName, Class<?>... paramTypes) {
+		try {
+			return MethodResolver.spreading(declaringClass.getDeclaredMethod(methodName, paramTypes));
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException(roe);
+		}
+	}
+
+	//
+	// Configuration, once per DSL call
+	//
+
+	/**
+	 * @return A copy of args, which the caller may go on to change, or an
+	 *         empty array for null
+	 */
+	public static Object[] arguments(Object[] args) {
+		return (args == null) ? new Object[0] : args.clone();
+	}
+
+	/**
+	 * Chooses the overload to call, as the dynamic builder does: the
+	 * candidates of the first level with an applicable one are considered,
+	 * and of them the most specific is chosen, see Overloads.
+	 * 
+	 * @param name
+	 *            The name of the method, or of the class for constructors
+	 * @param levels
+	 *            The parameter types of each candidate, by declaring class,
+	 *            from the class being built to its farthest superclass
+	 * @param args
+	 *            The arguments of the call
+	 * @return The index of the chosen candidate, counting across the levels,
+	 *         or -1 if none accepts args
+	 */
+	public static int select(String name, Class<?>[][][] levels, Object[] args) {
+		Class<?>[] argTypes = Overloads.signatureOf(args);
+		int offset = 0;
+		for (int level = 0; level < levels.length; level++) {
+			int selected;
+			try {
+				selected = Overloads.select(name, levels[level], argTypes);
+			} catch (NoSuchMethodException nsme) {
+				throw new RuntimeException("", nsme);
+			}
+			if (selected >= 0) {
+				return offset + selected;
+			}
+			offset += levels[level].length;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param clazz
+	 *            The class being built
+	 * @return A Supplier of instances whose constructors were bypassed, using
+	 *         the shared instantiator of clazz, see InstantiatorRegistry
+	 */
+	public static <T> Supplier<T> bypassing(Class<T> clazz) {
+		final ObjectInstantiator<?> instantiator = InstantiatorRegistry.getInstantiatorOf(clazz);
+		return new Supplier<T>() {
+			@SuppressWarnings("unchecked")
+			public T get() {
+				return (T) instantiator.newInstance();
+			}
+		};
+	}
+
+	/**
+	 * Checks a value for a reference field.
+	 * 
+	 * @return value, if type accepts it
+	 * @throws IllegalArgumentException
+	 *             The field can not hold value
+	 */
+	public static <T> T cast(Class<T> type, Object value, String fieldName) {
+		if (value != null && !type.isInstance(value)) {
+			throw new IllegalArgumentException(new StringBuffer("Can not set ").append(type.getName()).append(" field ").append(fieldName)
+					.append(" to ").append(value.getClass().getName()).toString());
+		}
+		return type.cast(value);
+	}
+
+	public static boolean booleanValue(Object value) {
+		return ((Boolean) accepted(Boolean.TYPE, value)).booleanValue();
+	}
+
+	public static char charValue(Object value) {
+		return ((Character) accepted(Character.TYPE, value)).charValue();
+	}
+
+	public static byte byteValue(Object value) {
+		return ((Number) accepted(Byte.TYPE, value)).byteValue();
+	}
+
+	public static short shortValue(Object value) {
+		return ((Number) accepted(Short.TYPE, value)).shortValue();
+	}
+
+	public static int intValue(Object value) {
+		Object checked = accepted(Integer.TYPE, value);
+		return (checked instanceof Character) ? ((Character) checked).charValue() : ((Number) checked).intValue();
+	}
+
+	public static long longValue(Object value) {
+		Object checked = accepted(Long.TYPE, value);
+		return (checked instanceof Character) ? ((Character) checked).charValue() : ((Number) checked).longValue();
+	}
+
+	public static float floatValue(Object value) {
+		Object checked = accepted(Float.TYPE, value);
+		return (checked instanceof Character) ? ((Character) checked).charValue() : ((Number) checked).floatValue();
+	}
+
+	public static double doubleValue(Object value) {
+		Object checked = accepted(Double.TYPE, value);
+		return (checked instanceof Character) ? ((Character) checked).charValue() : ((Number) checked).doubleValue();
+	}
+
+	/**
+	 * A wrapper is accepted by a primitive if it unwraps to that primitive
+	 * or widens to it, as Field.set accepts it.
+	 */
+	private static Object accepted(Class<?> primitive, Object value) {
+		if (value == null || !Overloads.accepts(primitive, value.getClass(), true)) {
+			throw new IllegalArgumentException(new StringBuffer("Can not convert ").append((value == null) ? "null value" : value.getClass().getName())
+					.append(" to ").append(primitive.getName()).toString());
+		}
+		return value;
+	}
+
+	//
+	// Builds
+	//
+
+	/**
+	 * Writes a field through a handle from fieldSetter.
+	 */
+	public static void set(MethodHandle setter, Object instance, Object value) {
+		try {
+			setter.invokeExact(instance, value);
+		} catch (Throwable t) {
+			throw new RuntimeException("", t);
+		}
+	}
+
+	/**
+	 * Calls a constructor through a handle from constructor.
+	 */
+	public static Object newInstance(Class<?> clazz, MethodHandle constructor, Object[] args) {
+		try {
+			return (Object) constructor.invokeExact(args);
+		} catch (Throwable t) {
+			throw initializationFailure(clazz, t);
+		}
+	}
+
+	/**
+	 * Calls a method through a handle from method.
+	 */
+	public static Object invoke(MethodHandle method, Object instance, Object[] args) {
+		try {
+			return (Object) method.invokeExact(instance, args);
+		} catch (Throwable t) {
+			throw invocationFailure(t);
+		}
+	}
+
+	/**
+	 * @return The exception the dynamic builder throws when the class being
+	 *         built can not be instantiated
+	 */
+	public static RuntimeException initializationFailure(Class<?> clazz, Throwable t) {
+		return new RuntimeException(new StringBuffer("Initalization Exception: EasyBuilder failed to instantiate the class ").append(
+				clazz.getName()).toString(), t);
+	}
+
+	/**
+	 * @return The exception the dynamic builder throws when no constructor
+	 *         accepts args
+	 */
+	public static RuntimeException missingConstructor(Class<?> clazz, Object[] args) {
+		return initializationFailure(clazz, new NoSuchMethodException(new StringBuffer("No constructor of ").append(clazz.getName())
+				.append(" accepts ").append(Overloads.describe(Overloads.signatureOf(args))).toString()));
+	}
+
+	/**
+	 * @return The exception the dynamic builder throws when an invoked method
+	 *         throws t
+	 */
+	public static RuntimeException invocationFailure(Throwable t) {
+		return new RuntimeException("", new InvocationTargetException(t));
+	}
+}
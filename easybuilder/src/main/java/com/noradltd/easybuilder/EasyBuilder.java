@@ -0,0 +1,2563 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/**
+ * Please note that this initial version of EasyBuilder is intended to function
+ * in the Java JDK 1.4 environment.
+ * 
+ * @author Nilanjan Raychaundhrui, nraychaudhrui@pillartechnology.com
+ * @author Rich Dammkoehler, rdammkoehler@gmail.com (NOrad Ltd.)
+ * @noinspection ConstantConditions
+ */
+public class EasyBuilder {
+
+	/**
+	 * The target class to be built.
+	 */
+	private Class<?> clazz;
+
+	/**
+	 * The instance of the class being built. This may be removed later, see
+	 * wiki discussion on 'Builder Builder'. A template never holds one, its
+	 * instances live only in the BuildContext of each build.
+	 */
+	private Object instance;
+
+	/**
+	 * A list of instructions used to assemble the an instance of the class
+	 * being built. The list is shared with builders derived from this one,
+	 * see derive().
+	 */
+	private List<AssemblyInstruction> assemblyInstructions;
+
+	/**
+	 * A template's instructions can no longer be changed, and each build
+	 * creates a new instance, see asTemplate().
+	 */
+	private volatile boolean template = false;
+
+	/**
+	 * The number of builds after which a builder stops interpreting its
+	 * instructions and runs them compiled instead, see compile(). Zero or less
+	 * keeps every builder interpreted. The default is taken from the
+	 * <code>easybuilder.compileThreshold</code> system property.
+	 */
+	private static volatile int compileThreshold = Integer.getInteger("easybuilder.compileThreshold", 1000).intValue();
+
+	/**
+	 * Whether preCompile optimizes the plan, see PlanOptimizer. The default
+	 * is taken from the <code>easybuilder.optimize</code> system property.
+	 */
+	private static volatile boolean optimizing = Boolean.parseBoolean(System.getProperty("easybuilder.optimize", "true"));
+
+	/**
+	 * Counts the builders that have been promoted to compiled instructions.
+	 */
+	private static final AtomicLong promotions = new AtomicLong();
+
+	/**
+	 * buildParallel splits a batch into about this many ranges, enough to
+	 * keep every worker of a large pool busy while ranges finish unevenly.
+	 */
+	private static final int PARALLEL_RANGES = 4 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The fewest builds worth handing to a worker as a range of their own.
+	 */
+	private static final int MIN_PARALLEL_RANGE = 256;
+
+	/**
+	 * The assembly instructions sorted and validated by preCompile. The plan
+	 * is kept until the instructions change, so repeated builds neither sort
+	 * nor validate again. Builds read the plan without locking; it is only
+	 * ever replaced, never changed.
+	 */
+	private volatile AssemblyInstruction[] assemblyPlan = null;
+
+	/**
+	 * Counts builds since the instructions last changed. Builds count
+	 * themselves outside the builder's lock, so the count is only updated
+	 * through buildCounter.
+	 */
+	private volatile long buildCount = 0;
+
+	private static final AtomicLongFieldUpdater<EasyBuilder> buildCounter = AtomicLongFieldUpdater.newUpdater(EasyBuilder.class, "buildCount");
+
+	/**
+	 * The compiled instructions, once this builder has been promoted.
+	 */
+	private volatile CompiledAssembly compiledAssembly = null;
+
+	/**
+	 * Initializes the EasyBuilder using the given class. No further action
+	 * occurs.
+	 * 
+	 * @param clazz_p
+	 *            The class to be built.
+	 */
+	public EasyBuilder(Class<?> clazz_p) {
+		clazz = clazz_p;
+		assemblyInstructions = new InstructionList();
+		addInstruction(new BasicInstantiateInstruction());
+	}
+
+	/**
+	 * Initializes a builder derived from another, see derive().
+	 */
+	private EasyBuilder(Class<?> clazz_p, List<AssemblyInstruction> assemblyInstructions_p) {
+		clazz = clazz_p;
+		assemblyInstructions = assemblyInstructions_p;
+	}
+
+	/**
+	 * Adds an assembly instruction to the end of the assembly instruction list.
+	 * 
+	 * @param instruction
+	 *            The instruction to add
+	 */
+	private synchronized void addInstruction(AssemblyInstruction instruction) {
+		checkNotTemplate();
+		assemblyInstructions.add(instruction);
+		invalidate();
+	}
+
+	/**
+	 * Guards the instructions of a template against change.
+	 */
+	private void checkNotTemplate() {
+		if (template) {
+			throw new IllegalStateException(new StringBuffer("EasyBuilder template can not be changed: ").append(this).toString());
+		}
+	}
+
+	/**
+	 * Discards the plan and the compiled instructions after the instructions
+	 * change, and starts counting builds toward promotion again.
+	 */
+	private void invalidate() {
+		assemblyPlan = null;
+		compiledAssembly = null;
+		buildCounter.set(this, 0);
+	}
+
+	/**
+	 * Executes all of the assembly instructions in order. A template builds
+	 * in a context of its own, so any number of threads may build from it at
+	 * once. Any other builder holds on to its instance between builds, so its
+	 * builds take turns.
+	 * 
+	 * @return The assembled object
+	 */
+	private Object assembleObject() {
+		AssemblyInstruction[] plan = getAssemblyPlan();
+		if (template) {
+			BuildContext context = new BuildContext(clazz, null);
+			assemble(plan, context, compiledFor(plan, 1));
+			return context.instance;
+		}
+		synchronized (this) {
+			BuildContext context = new BuildContext(clazz, instance);
+			try {
+				assemble(plan, context, compiledFor(plan, 1));
+			} finally {
+				instance = context.instance;
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Applies the plan within a build's context, through the compiled
+	 * instructions if there are any.
+	 */
+	private void assemble(AssemblyInstruction[] plan, BuildContext context, CompiledAssembly compiled) {
+		if (BuildMetrics.enabled) {
+			assembleMeasured(plan, context, compiled);
+		} else if (compiled != null) {
+			if (context.instance == null) {
+				context.instance = compiled.instantiate();
+			}
+			compiled.assemble(context);
+		} else {
+			for (int idx = 0; idx < plan.length; idx++) {
+				plan[idx].invoke(context);
+			}
+		}
+	}
+
+	/**
+	 * assemble, timing each instruction and the build as a whole for
+	 * BuildMetrics. Compiled instructions are timed step by step, see
+	 * CompiledAssembly.assembleMeasured. Instantiation is only timed when
+	 * the build creates an instance, not when it reuses the one it holds.
+	 */
+	private void assembleMeasured(AssemblyInstruction[] plan, BuildContext context, CompiledAssembly compiled) {
+		long start = System.nanoTime();
+		long mark = start;
+		if (compiled != null) {
+			mark = compiled.assembleMeasured(context, start);
+		} else {
+			boolean held = context.instance != null;
+			for (int idx = 0; idx < plan.length; idx++) {
+				plan[idx].invoke(context);
+				long now = System.nanoTime();
+				if (!held || !(plan[idx] instanceof InstantiateInstruction)) {
+					BuildMetrics.recordInstruction(plan[idx], now - mark);
+				}
+				mark = now;
+			}
+		}
+		// the clock is read once per instruction, the build ends with the last
+		BuildMetrics.recordBuild(clazz, mark - start);
+	}
+
+	/**
+	 * @return The current plan, made by preCompile if the instructions have
+	 *         changed since the last one
+	 */
+	private AssemblyInstruction[] getAssemblyPlan() {
+		AssemblyInstruction[] plan = assemblyPlan;
+		if (plan == null) {
+			synchronized (this) {
+				if (assemblyPlan == null) {
+					preCompile();
+				}
+				plan = assemblyPlan;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Builds each index from one up to, but not including, the other into
+	 * out. Nothing but out is written, so ranges may be built in parallel.
+	 * One context serves the range, and is reset before each build so that
+	 * no build sees the instance or the results of the one before.
+	 */
+	private void buildRange(AssemblyInstruction[] plan, CompiledAssembly compiled, Object[] out, int from, int to) {
+		BuildContext context = new BuildContext(clazz, null);
+		for (int idx = from; idx < to; idx++) {
+			context.reset(idx);
+			assemble(plan, context, compiled);
+			out[idx] = context.instance;
+		}
+	}
+
+	/**
+	 * Builds a single new instance at an index, for BuildSpliterator.
+	 */
+	Object buildAt(AssemblyInstruction[] plan, CompiledAssembly compiled, int index) {
+		BuildContext context = new BuildContext(clazz, null, index);
+		assemble(plan, context, compiled);
+		return context.instance;
+	}
+
+	/**
+	 * Counts builds about to be made from the plan. A builder that has been
+	 * built often enough is promoted, and its compiled instructions returned.
+	 * 
+	 * @param plan
+	 *            The plan about to be built
+	 * @param builds
+	 *            The number of builds about to be made
+	 * @return The compiled instructions, or null to interpret the plan
+	 */
+	private CompiledAssembly compiledFor(AssemblyInstruction[] plan, int builds) {
+		CompiledAssembly compiled = compiledAssembly;
+		if (compiled == null && isHot(builds)) {
+			compiled = promote(plan);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Counts builds and decides whether this builder is worth compiling.
+	 */
+	private boolean isHot(int builds) {
+		int threshold = compileThreshold;
+		return threshold > 0 && buildCounter.addAndGet(this, builds) >= threshold;
+	}
+
+	/**
+	 * Compiles the instructions so that later builds no longer interpret
+	 * them. If they can not be compiled the builder stays interpreted and
+	 * tries again after another threshold's worth of builds.
+	 * 
+	 * @param plan
+	 *            The plan to compile
+	 * @return The compiled instructions, or null if the builder stays
+	 *         interpreted
+	 */
+	private synchronized CompiledAssembly promote(AssemblyInstruction[] plan) {
+		if (compiledAssembly == null && plan == assemblyPlan) {
+			try {
+				compiledAssembly = AssemblyCompiler.compile(Arrays.asList(plan), clazz);
+				promotions.incrementAndGet();
+			} catch (RuntimeException re) {
+				buildCounter.set(this, 0);
+			}
+		}
+		return (plan == assemblyPlan) ? compiledAssembly : null;
+	}
+
+	/**
+	 * Pre-guard the execution of assembleObject() by ensuring that certain
+	 * requisit actions have been taken prior to execution. <p/>
+	 * <ul>
+	 * <li>The first instruction <u>must</u> be an InstantiateInstruction</li>
+	 * <li>An instantiate instruction who's bypass value is true takes
+	 * precedence over one who's does not</li>
+	 * </ul>
+	 * Unless optimization is turned off, the sorted instructions are then
+	 * rewritten by PlanOptimizer. The result is kept as the assembly plan
+	 * until the instructions change.
+	 */
+	private void preCompile() {
+		// we must have an assemblyInstruction
+		if (assemblyInstructions.isEmpty()) {
+			assemblyInstructions.add(new BasicInstantiateInstruction());
+		}
+		// ensure execution order
+		Collections.sort(assemblyInstructions);
+		// make sure we only have one InstantiateInstruction
+		while (assemblyInstructions.size() > 1 && assemblyInstructions.get(1) instanceof InstantiateInstruction) {
+			assemblyInstructions.remove(1);
+		}
+		if (optimizing) {
+			assemblyPlan = PlanOptimizer.optimize(assemblyInstructions, clazz);
+		} else {
+			assemblyPlan = assemblyInstructions.toArray(new AssemblyInstruction[assemblyInstructions.size()]);
+		}
+	}
+
+	/**
+	 * @return The number of builds after which builders are compiled, zero
+	 *         or less if they never are
+	 */
+	public static int getCompileThreshold() {
+		return compileThreshold;
+	}
+
+	/**
+	 * Sets the number of builds after which a builder stops interpreting its
+	 * instructions and runs them compiled. Zero or less turns promotion off.
+	 * 
+	 * @param threshold
+	 *            The number of builds
+	 */
+	public static void setCompileThreshold(int threshold) {
+		compileThreshold = threshold;
+	}
+
+	/**
+	 * @return true if plans are optimized, see setOptimizing(boolean)
+	 */
+	public static boolean isOptimizing() {
+		return optimizing;
+	}
+
+	/**
+	 * Turns the optimization of plans on or off. Dropping overwritten field
+	 * writes and fusing adjacent ones never changes what is built, but a plan
+	 * that runs every instruction as given can be easier to debug. Plans that
+	 * already exist are kept until their instructions change.
+	 * 
+	 * @param optimizing_p
+	 *            true to optimize plans
+	 */
+	public static void setOptimizing(boolean optimizing_p) {
+		optimizing = optimizing_p;
+	}
+
+	/**
+	 * @return The number of builders promoted to compiled instructions so far
+	 */
+	public static long getPromotionCount() {
+		return promotions.get();
+	}
+
+	/**
+	 * Prewarms classes on the common ForkJoinPool, see prewarm(Executor,
+	 * Class...).
+	 * 
+	 * @param classes
+	 *            The classes to be built later
+	 * @return How long each class took
+	 */
+	public static PrewarmReport prewarm(Class<?>... classes) {
+		return prewarm(ForkJoinPool.commonPool(), classes);
+	}
+
+	/**
+	 * Does ahead of time what the first build of each class would otherwise
+	 * do: every field is resolved and its writer created, the constructors
+	 * are resolved and the Objenesis instantiator is chosen. The classes are
+	 * prewarmed in parallel, a task each on the executor, and the call
+	 * returns once all of them are done. Nothing is built, so no constructor
+	 * or method of the classes runs. A class that fails is reported and does
+	 * not stop the others.
+	 * 
+	 * @param executor
+	 *            Runs the tasks
+	 * @param classes
+	 *            The classes to be built later
+	 * @return How long each class took, and what failed
+	 */
+	public static PrewarmReport prewarm(Executor executor, Class<?>... classes) {
+		return Prewarmer.prewarm(classes, executor);
+	}
+
+	/**
+	 * Prewarms a package on the common ForkJoinPool, see
+	 * prewarmPackage(String, Executor).
+	 * 
+	 * @param packageName
+	 *            The name of the package, e.g. com.example.model
+	 * @return How long each class took
+	 * @throws IOException
+	 *             The class path could not be read
+	 */
+	public static PrewarmReport prewarmPackage(String packageName) throws IOException {
+		return prewarmPackage(packageName, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Prewarms every class of a package and of the packages within it, found
+	 * in the directories and jar files the context class loader of the
+	 * calling thread searches, see prewarm(Executor, Class...). Classes are
+	 * loaded without being initialized; anonymous and local classes are left
+	 * out.
+	 * 
+	 * @param packageName
+	 *            The name of the package, e.g. com.example.model
+	 * @param executor
+	 *            Runs the tasks
+	 * @return How long each class took, including loading it, and what failed
+	 * @throws IOException
+	 *             The class path could not be read
+	 */
+	public static PrewarmReport prewarmPackage(String packageName, Executor executor) throws IOException {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader == null) {
+			loader = EasyBuilder.class.getClassLoader();
+		}
+		return Prewarmer.prewarm(Prewarmer.scan(packageName, loader), loader, executor);
+	}
+
+	/**
+	 * @return true if this builder has been promoted and runs its
+	 *         instructions compiled
+	 */
+	public boolean isCompiled() {
+		return compiledAssembly != null;
+	}
+
+	/**
+	 * Describes the plan that builds run, after preCompile has sorted and
+	 * optimized the instructions. Fused writes show as a bulkSet, and
+	 * overwritten writes are missing.
+	 * 
+	 * @return A description of the assembly plan
+	 */
+	public String describePlan() {
+		AssemblyInstruction[] plan = getAssemblyPlan();
+		return new StringBuilder("EasyBuilderPlan[").append("target::").append(clazz.getName()).append(", steps::").append(plan.length).append(
+				", plan::").append(Arrays.asList(plan)).append("]").toString();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return new StringBuilder("EasyBuilder[").append("target::").append(clazz.getName()).append(", instructions::").append(assemblyInstructions).append("]")
+				.toString();
+	}
+
+	//
+	// Public API
+	//
+
+	/**
+	 * Causes the builder to bypass the default constructor of the class to be
+	 * built.
+	 * 
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public synchronized EasyBuilder bypassConstructor() {
+		checkNotTemplate();
+		// guard against duplication
+		if (assemblyInstructions.get(0) instanceof InstantiateInstruction) {
+			assemblyInstructions.remove(0);
+		}
+		assemblyInstructions.add(0, new BypassingInstantiateInstruction());
+		invalidate();
+		return this;
+	}
+
+	/**
+	 * Creates an initialized instance of the class to be built.
+	 * 
+	 * @return An initialized instance of the class to be built
+	 */
+	public Object build() {
+		return assembleObject();
+	}
+
+	/**
+	 * Creates a batch of initialized instances, see buildInto(Object[]).
+	 * 
+	 * @param n
+	 *            The number of instances to build
+	 * @return An array of n new instances
+	 */
+	public Object[] buildMany(int n) {
+		return buildInto(new Object[n]);
+	}
+
+	/**
+	 * Fills an array with new, initialized instances of the class to be
+	 * built. The plan is made once for the whole batch, and the instance at
+	 * each index receives the values the indexed fields supply for that index,
+	 * see setIndexedField(String, IntFunction). Each element is a new instance
+	 * whether or not this builder is a template, and the instance held by the
+	 * builder itself is left alone.
+	 * 
+	 * @param out
+	 *            The array to fill
+	 * @return out
+	 */
+	public Object[] buildInto(Object[] out) {
+		AssemblyInstruction[] plan = getAssemblyPlan();
+		buildRange(plan, compiledFor(plan, out.length), out, 0, out.length);
+		return out;
+	}
+
+	/**
+	 * Builds a batch on the common ForkJoinPool, see buildParallel(int,
+	 * Executor).
+	 * 
+	 * @param n
+	 *            The number of instances to build
+	 * @return An array of n new instances, in index order
+	 */
+	public Object[] buildParallel(int n) {
+		return buildParallel(n, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Builds a batch the way buildMany(int) does, split into ranges of
+	 * indexes that are built on the executor. The plan is made, and the
+	 * builder promoted if the batch is large enough, before any range is
+	 * handed out; the workers then share it without further coordination.
+	 * The call returns once every range has been built, and passes on the
+	 * first failure of any of them.
+	 * 
+	 * @param n
+	 *            The number of instances to build
+	 * @param executor
+	 *            Runs the ranges
+	 * @return An array of n new instances, in index order
+	 */
+	public Object[] buildParallel(int n, Executor executor) {
+		final Object[] out = new Object[n];
+		final AssemblyInstruction[] plan = getAssemblyPlan();
+		final CompiledAssembly compiled = compiledFor(plan, n);
+		int rangeSize = Math.max(MIN_PARALLEL_RANGE, (n + PARALLEL_RANGES - 1) / PARALLEL_RANGES);
+		List<CompletableFuture<Void>> ranges = new ArrayList<CompletableFuture<Void>>();
+		for (int from = 0; from < n; from += rangeSize) {
+			final int lo = from;
+			final int hi = Math.min(n, from + rangeSize);
+			ranges.add(CompletableFuture.runAsync(new Runnable() {
+				public void run() {
+					buildRange(plan, compiled, out, lo, hi);
+				}
+			}, executor));
+		}
+		try {
+			CompletableFuture.allOf(ranges.toArray(new CompletableFuture<?>[ranges.size()])).join();
+		} catch (CompletionException ce) {
+			throw AssemblyCompiler.rethrow(ce.getCause());
+		}
+		return out;
+	}
+
+	/**
+	 * A lazy stream of new instances, see stream(int, ObjIntConsumer).
+	 * 
+	 * @param n
+	 *            The number of instances in the stream
+	 * @return A stream that builds each instance as it is consumed
+	 */
+	public Stream<Object> stream(int n) {
+		return stream(n, null);
+	}
+
+	/**
+	 * A lazy stream of n new instances, indexed the way buildMany(int) indexes
+	 * them. Nothing is built until the stream is consumed, and then only one
+	 * instance at a time, so the whole batch never has to be held in memory.
+	 * The stream is sequential; parallel() splits the indexes into ranges
+	 * built independently of each other.
+	 * 
+	 * @param n
+	 *            The number of instances in the stream
+	 * @param customizer
+	 *            Receives each instance and its index once it is built, may
+	 *            be null
+	 * @return A stream that builds each instance as it is consumed
+	 */
+	public Stream<Object> stream(int n, ObjIntConsumer<Object> customizer) {
+		AssemblyInstruction[] plan = getAssemblyPlan();
+		return StreamSupport.stream(new BuildSpliterator(this, plan, compiledFor(plan, n), customizer, 0, n), false);
+	}
+
+	/**
+	 * A publisher of n new instances per subscriber, delivered on the common
+	 * ForkJoinPool in batches of Flow.defaultBufferSize(), see
+	 * publisher(int, Executor, int).
+	 * 
+	 * @param n
+	 *            The number of instances each subscriber receives
+	 * @return A publisher that builds instances as they are requested
+	 */
+	public BuildPublisher publisher(int n) {
+		return publisher(n, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+	}
+
+	/**
+	 * A Flow.Publisher of n new instances per subscriber. An instance is
+	 * built only once a subscriber has requested it, and signals are
+	 * delivered on the executor. A subscriber's outstanding demand is met
+	 * batchSize instances at a time, each batch a separate task on the
+	 * executor.
+	 * 
+	 * @param n
+	 *            The number of instances each subscriber receives
+	 * @param executor
+	 *            Delivers the signals
+	 * @param batchSize
+	 *            The most instances delivered by one task
+	 * @return A publisher that builds instances as they are requested
+	 */
+	public BuildPublisher publisher(int n, Executor executor, int batchSize) {
+		AssemblyInstruction[] plan = getAssemblyPlan();
+		return new BuildPublisher(this, plan, compiledFor(plan, n), n, executor, batchSize);
+	}
+
+	/**
+	 * Turns this builder into a template. The instructions given so far
+	 * become fixed, any further DSL call throws an IllegalStateException, and
+	 * every call to build() creates a new instance. One template can then
+	 * stand in for a builder per object, and may be shared between threads
+	 * that build from it at the same time.
+	 * 
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public synchronized EasyBuilder asTemplate() {
+		template = true;
+		instance = null;
+		return this;
+	}
+
+	/**
+	 * @return true if this builder is a template, see asTemplate()
+	 */
+	public boolean isTemplate() {
+		return template;
+	}
+
+	/**
+	 * Derives a new builder that starts out with the instructions of this
+	 * one. The instructions are shared, not copied, so deriving costs about
+	 * the same however many instructions this builder has, and the derived
+	 * builder stores only the instructions given to it afterwards. Since later
+	 * writes of a field win, and the plan leaves out the writes they
+	 * overwrite, those instructions override the shared ones. The shared
+	 * instructions keep the fields, methods and constructors they have
+	 * resolved, so a derived builder does not resolve them again.
+	 * 
+	 * Later changes to either builder are not seen by the other. The derived
+	 * builder is not a template, whether or not this one is; changing how it
+	 * instantiates, e.g. with bypassConstructor(), copies the shared
+	 * instructions.
+	 * 
+	 * @return A new builder of the same class
+	 */
+	public synchronized EasyBuilder derive() {
+		return new EasyBuilder(clazz, InstructionList.derive(assemblyInstructions));
+	}
+
+	/**
+	 * Derives a builder that also sets a field, see derive().
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return The derived builder, this builder is left unchanged
+	 */
+	public EasyBuilder with(String fieldName, Object value) {
+		return derive().setField(fieldName, value);
+	}
+
+	/**
+	 * Compiles the assembly instructions given so far. Every field, method
+	 * and constructor is resolved once and bound into a single MethodHandle,
+	 * so building from the result costs about as much as hand written code.
+	 * Unlike build(), each call to build() on the result creates a new
+	 * instance. Later changes to this builder do not affect the result.
+	 * 
+	 * @return The compiled form of this builder
+	 */
+	public CompiledBuilder compile() {
+		return new CompiledBuilder(clazz, AssemblyCompiler.compile(Arrays.asList(getAssemblyPlan()), clazz).joined());
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, Object value) {
+		addInstruction(new SetFieldInstruction(fieldName, value));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, Object value, Class<?> clazz) {
+		addInstruction(new SetFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, char value) {
+		addInstruction(new CharFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, char value, Class<?> clazz) {
+		addInstruction(new CharFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, byte value) {
+		addInstruction(new ByteFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, byte value, Class<?> clazz) {
+		addInstruction(new ByteFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, short value) {
+		addInstruction(new ShortFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, short value, Class<?> clazz) {
+		addInstruction(new ShortFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, int value) {
+		addInstruction(new IntFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, int value, Class<?> clazz) {
+		addInstruction(new IntFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, long value) {
+		addInstruction(new LongFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, long value, Class<?> clazz) {
+		addInstruction(new LongFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, float value) {
+		addInstruction(new FloatFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, float value, Class<?> clazz) {
+		addInstruction(new FloatFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, double value) {
+		addInstruction(new DoubleFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, double value, Class<?> clazz) {
+		addInstruction(new DoubleFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a filed directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, boolean value) {
+		addInstruction(new BooleanFieldInstruction(fieldName, value, null));
+		return this;
+	}
+
+	/**
+	 * Sets the value of a private field directly through the field.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param value
+	 *            The value to set
+	 * @param clazz
+	 *            The impelementing class of the field
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setField(String fieldName, boolean value, Class<?> clazz) {
+		addInstruction(new BooleanFieldInstruction(fieldName, value, clazz));
+		return this;
+	}
+
+	/**
+	 * Sets multiple values directly through the field. The order in which the
+	 * sets occurs is arbitrary.
+	 * 
+	 * @param fieldMap
+	 *            A map keyed by field name of values to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setFields(Map<String, Object> fieldMap) {
+		Iterator<Map.Entry<String, Object>> itr = fieldMap.entrySet().iterator();
+		while (itr.hasNext()) {
+			Map.Entry<String,Object> entry = itr.next();
+			addInstruction(new SetFieldInstruction((String) entry.getKey(), entry.getValue()));
+		}
+		return this;
+	}
+
+	/**
+	 * Calls a setter, or any other two-argument consumer, with a value. The
+	 * setter is called directly, so no field or method is looked up by name,
+	 * and a renamed setter breaks the build at compile time rather than at
+	 * run time. Pass a method reference such as
+	 * <code>set(Person::setName, "Pat")</code>, or an explicitly typed
+	 * lambda; the primitive forms of set are chosen for int, long and double
+	 * setters and values, and do not box. There are no forms for boolean,
+	 * char, byte, short or float: their setters take this form and box the
+	 * value, once, when the builder is set up. Forms for them would make a
+	 * call that passes, say, a short to an int setter ambiguous.
+	 * 
+	 * @param setter
+	 *            Receives the instance being built and the value
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T, V> EasyBuilder set(BiConsumer<T, ? super V> setter, V value) {
+		addInstruction(new SetterInstruction((BiConsumer<Object, Object>) setter, value));
+		return this;
+	}
+
+	/**
+	 * Calls an int setter with a value, see set(BiConsumer, Object).
+	 * 
+	 * @param setter
+	 *            Receives the instance being built and the value
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> EasyBuilder set(ObjIntConsumer<T> setter, int value) {
+		addInstruction(new IntSetterInstruction((ObjIntConsumer<Object>) setter, value));
+		return this;
+	}
+
+	/**
+	 * Calls a long setter with a value, see set(BiConsumer, Object). The
+	 * value must be a long; an int would fit the int form of set as well.
+	 * 
+	 * @param setter
+	 *            Receives the instance being built and the value
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> EasyBuilder set(ObjLongConsumer<T> setter, long value) {
+		addInstruction(new LongSetterInstruction((ObjLongConsumer<Object>) setter, value));
+		return this;
+	}
+
+	/**
+	 * Calls a double setter with a value, see set(BiConsumer, Object).
+	 * 
+	 * @param setter
+	 *            Receives the instance being built and the value
+	 * @param value
+	 *            The value to set
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> EasyBuilder set(ObjDoubleConsumer<T> setter, double value) {
+		addInstruction(new DoubleSetterInstruction((ObjDoubleConsumer<Object>) setter, value));
+		return this;
+	}
+
+	/**
+	 * Sets a field from a function of the build's index. buildInto(Object[])
+	 * passes the index of each element, a single build() passes 0.
+	 * Primitive fields are better served by setIndexedIntField and its
+	 * siblings, which do not box.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param values
+	 *            Supplies the value for each index
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setIndexedField(String fieldName, IntFunction<?> values) {
+		addInstruction(new IndexedObjectInstruction(fieldName, values));
+		return this;
+	}
+
+	/**
+	 * Sets a field from a function of the build's index, without boxing. The
+	 * value widens to long, float and double fields.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param values
+	 *            Supplies the value for each index
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setIndexedIntField(String fieldName, IntUnaryOperator values) {
+		addInstruction(new IndexedIntInstruction(fieldName, values));
+		return this;
+	}
+
+	/**
+	 * Sets a field from a function of the build's index, without boxing. The
+	 * value widens to float and double fields.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param values
+	 *            Supplies the value for each index
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setIndexedLongField(String fieldName, IntToLongFunction values) {
+		addInstruction(new IndexedLongInstruction(fieldName, values));
+		return this;
+	}
+
+	/**
+	 * Sets a double field from a function of the build's index, without
+	 * boxing.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param values
+	 *            Supplies the value for each index
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setIndexedDoubleField(String fieldName, IntToDoubleFunction values) {
+		addInstruction(new IndexedDoubleInstruction(fieldName, values));
+		return this;
+	}
+
+	/**
+	 * Sets a boolean field from a predicate on the build's index.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param values
+	 *            Supplies the value for each index
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setIndexedBooleanField(String fieldName, IntPredicate values) {
+		addInstruction(new IndexedBooleanInstruction(fieldName, values));
+		return this;
+	}
+
+	/**
+	 * Invokes method by name. The method is chosen by its arguments the way
+	 * the compiler would choose it, and is skipped if there is none. What it
+	 * returns is kept for setFieldFromResult.
+	 * 
+	 * @param methodName
+	 *            A declared method on this class or one of it's ancestors
+	 * @param args
+	 *            the arguments to the method
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder invokeMethod(String methodName, Object[] args) {
+		addInstruction(new MethodInvocationInstruction(methodName, args));
+		return this;
+	}
+
+	/**
+	 * Sets a field to the value a method invoked earlier in the same build
+	 * returned, see invokeMethod. The build fails if the method has not
+	 * returned a value by then.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field to be set
+	 * @param methodName
+	 *            The name of the method whose result is used
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public EasyBuilder setFieldFromResult(String fieldName, String methodName) {
+		addInstruction(new SetFieldFromResultInstruction(fieldName, methodName));
+		return this;
+	}
+
+	/**
+	 * Uses a constructor other than the default. Invocation of this will be
+	 * ignored if you've used bypassConstructor()
+	 * 
+	 * @param args
+	 *            The arguments for the constructor
+	 * @return An instance of the EasyBuilder, this allows chained-calls.
+	 */
+	public synchronized EasyBuilder useAlternateConstructor(Object[] args) {
+		checkNotTemplate();
+		// guard against duplication
+		if (assemblyInstructions.get(0) instanceof InstantiateInstruction) {
+			assemblyInstructions.remove(0);
+		}
+		assemblyInstructions.add(0, new ParameterizedInstantiateInstruction(args));
+		invalidate();
+		return this;
+	}
+
+	//
+	// Support Classes
+	//
+
+	/**
+	 * Represents an assembly instruction in the process of building an instance
+	 * of the class to be built.
+	 */
+	interface AssemblyInstruction extends Comparable<Object> {
+		void invoke(BuildContext context);
+
+		/**
+		 * Resolves this instruction against the class being built and binds
+		 * it, see AssemblyCompiler.
+		 * 
+		 * @param clazz
+		 *            The class being built
+		 * @return A MethodHandle of (Object)void that applies this
+		 *         instruction to an instance
+		 */
+		MethodHandle compile(Class<?> clazz);
+	}
+
+	/**
+	 * Instructions are static, so they hold no reference to their builder.
+	 * Sequence ids come from one counter shared by every builder; only their
+	 * order within a builder matters. The counter is a long, so it does not
+	 * wrap around within the life of a process.
+	 */
+	static abstract class BaseInstruction implements AssemblyInstruction {
+		private static final AtomicLong sequence = new AtomicLong();
+
+		final protected long sequenceId = sequence.incrementAndGet();
+
+		/**
+		 * Uses the sequenceId to determine order
+		 * 
+		 * @param that
+		 * @return zero
+		 */
+		public int compareTo(Object that) {
+			int rval = 0;
+			if ( that instanceof InstantiateInstruction) {
+				rval = 1;
+			} else if (that instanceof BaseInstruction) {
+				rval = Long.compare(sequenceId, ((BaseInstruction) that).sequenceId);
+			}
+			return rval;
+		}
+
+	}
+
+	/**
+	 * Instantiates the class to be built.
+	 */
+	static abstract class InstantiateInstruction extends BaseInstruction implements AssemblyInstruction {
+
+		/**
+		 * Initialize the class, unless an instance already exists.
+		 */
+		public void invoke(BuildContext context) {
+			if (context.instance == null) {
+				context.instance = instantiate(context.clazz);
+			}
+		}
+
+		/**
+		 * Creates a new instance of the class being built.
+		 * 
+		 * @param clazz
+		 *            The class to be instantiated, the class being built
+		 * @return The new instance
+		 */
+		abstract Object instantiate(Class<?> clazz);
+
+		/**
+		 * Compiles this instruction to a MethodHandle of ()Object that
+		 * creates a new instance. Unless a subclass knows better, the handle
+		 * calls instantiate(clazz).
+		 * 
+		 * @param clazz
+		 *            The class being built
+		 * @return A MethodHandle of ()Object
+		 */
+		MethodHandle compileInstantiation(Class<?> clazz) {
+			try {
+				MethodHandle instantiate = AssemblyCompiler.lookup.findVirtual(InstantiateInstruction.class, "instantiate",
+						MethodType.methodType(Object.class, Class.class));
+				return MethodHandles.insertArguments(instantiate.bindTo(this), 0, clazz);
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException(roe);
+			}
+		}
+
+		/**
+		 * Instantiation is compiled separately, see compileInstantiation.
+		 */
+		public MethodHandle compile(Class<?> clazz) {
+			return AssemblyCompiler.NOOP;
+		}
+
+		//@Override
+		public int compareTo(Object that) {
+			int rval = 0;
+			if (that instanceof InstantiateInstruction) {
+				if (that instanceof BypassingInstantiateInstruction) {
+					rval = 1;
+				} else {
+					rval = 0;
+				}
+			} else {
+				rval = -1;
+			}
+			return rval;
+		}
+
+	}
+
+	static class BasicInstantiateInstruction extends InstantiateInstruction implements AssemblyInstruction {
+
+		/**
+		 * The class the default constructor was last resolved for, and the
+		 * result.
+		 */
+		private DefaultConstructorResolution resolution = null;
+
+		public BasicInstantiateInstruction() {
+		}
+
+		/**
+		 * Initialize the class through its default constructor, resolved
+		 * once per class by ConstructorResolver.
+		 */
+		Object instantiate(Class<?> clazz) {
+			try {
+				return resolveDefaultConstructor(clazz).supplier.get();
+			} catch (Exception e) {
+				throw new RuntimeException(new StringBuffer("Initalization Exception: EasyBuilder failed to instantiate the class ").append(
+						(clazz == null) ? "-unknown-" : clazz.getName()).toString(), e);
+			}
+		}
+
+		/**
+		 * Binds the default constructor directly. A class without one is left
+		 * to fail when it is built.
+		 */
+		MethodHandle compileInstantiation(Class<?> clazz) {
+			try {
+				return AssemblyCompiler.instantiation(resolveDefaultConstructor(clazz).handle, clazz);
+			} catch (InstantiationException ie) {
+				return super.compileInstantiation(clazz);
+			}
+		}
+
+		/**
+		 * Resolves the default constructor once for the class being built,
+		 * rather than looking up its ConstructorResolver on every build.
+		 * 
+		 * @param clazz
+		 *            The class to be instantiated, the class being built.
+		 * @return The default constructor of clazz
+		 * @throws InstantiationException
+		 *             The class has no default constructor, or it can not be
+		 *             called
+		 */
+		private ConstructorResolver.DefaultConstructor resolveDefaultConstructor(Class<?> clazz) throws InstantiationException {
+			DefaultConstructorResolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				resolved = new DefaultConstructorResolution(clazz, ConstructorResolver.of(clazz).getDefaultConstructor());
+				resolution = resolved;
+			}
+			return resolved.constructor;
+		}
+
+		// @Override
+		public String toString() {
+			return new StringBuffer("BasicInstantiate[sequenceId::").append(sequenceId).append("]").toString();
+		}
+	}
+
+	static class BypassingInstantiateInstruction extends InstantiateInstruction implements AssemblyInstruction {
+
+		public BypassingInstantiateInstruction() {
+		}
+
+		/**
+		 * Initialize the class.
+		 */
+		Object instantiate(Class<?> clazz) {
+			return createInstance(clazz);
+		}
+
+		/**
+		 * Binds the shared instantiator directly.
+		 */
+		MethodHandle compileInstantiation(Class<?> clazz) {
+			try {
+				MethodHandle newInstance = AssemblyCompiler.lookup.findVirtual(ObjectInstantiator.class, "newInstance",
+						MethodType.methodType(Object.class));
+				return newInstance.bindTo(InstantiatorRegistry.getInstantiatorOf(clazz));
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException(roe);
+			}
+		}
+
+		/**
+		 * Creates an instance of the class using Google's Objenesis library,
+		 * this creation bypasses the default constructor of the class. The
+		 * instantiator is shared through the InstantiatorRegistry.
+		 * 
+		 * @param clazz
+		 *            The class to be instantiated, the class being built
+		 * @return An uninitialized instance of the class being built, even the
+		 *         constructor was bypassed.
+		 */
+		private Object createInstance(Class<?> clazz) {
+			ObjectInstantiator<?> thingyInstantiator = InstantiatorRegistry.getInstantiatorOf(clazz);
+			return thingyInstantiator.newInstance();
+		}
+
+		//@Override
+		public int compareTo(Object that) {
+			int rval = -1;
+			if (that instanceof BypassingInstantiateInstruction) {
+				rval = 0;
+			}
+			return rval;
+		}
+
+		// @Override
+		public String toString() {
+			return new StringBuffer("BypassingInstantiateInstruction[sequenceId::").append(sequenceId).append("]").toString();
+		}
+	}
+
+	static class ParameterizedInstantiateInstruction extends InstantiateInstruction implements AssemblyInstruction {
+
+		/**
+		 * Arguments to the constructor.
+		 */
+		final Object[] args;
+
+		/**
+		 * The class the constructor was last resolved for, and the result.
+		 */
+		private ConstructorResolution resolution = null;
+
+		public ParameterizedInstantiateInstruction(Object[] args_p) {
+			args = (args_p == null) ? new Object[0] : args_p.clone();
+		}
+
+		/**
+		 * Initialize the class.
+		 */
+		Object instantiate(Class<?> clazz) {
+			try {
+				return (Object) resolveConstructor(clazz).invokeExact(args);
+			} catch (Throwable t) {
+				throw new RuntimeException(new StringBuffer("Initalization Exception: EasyBuilder failed to instantiate the class ").append(
+						(clazz == null) ? "-unknown-" : clazz.getName()).toString(), t);
+			}
+		}
+
+		/**
+		 * Binds the arguments to the resolved constructor. A constructor that
+		 * can not be resolved is left to fail when it runs.
+		 */
+		@Override
+		MethodHandle compileInstantiation(Class<?> clazz) {
+			try {
+				return AssemblyCompiler.instantiation(MethodHandles.insertArguments(resolveConstructor(clazz), 0, (Object) args), clazz);
+			} catch (NoSuchMethodException nsme) {
+				return super.compileInstantiation(clazz);
+			}
+		}
+
+		/**
+		 * Resolves the constructor who's parameters accept the arguments to
+		 * this instruction, once for the class being built. The search
+		 * starts with the constructors of clazz and continues with those of
+		 * each superclass, see ConstructorResolver.
+		 * 
+		 * @param clazz
+		 *            The class to be instantiated, the class being built.
+		 * @return A MethodHandle of (Object[])Object
+		 * @throws NoSuchMethodException
+		 *             No constructor accepts the arguments
+		 */
+		private MethodHandle resolveConstructor(Class<?> clazz) throws NoSuchMethodException {
+			ConstructorResolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				resolved = new ConstructorResolution(clazz, ConstructorResolver.of(clazz).resolve(args));
+				resolution = resolved;
+			}
+			return resolved.constructor;
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuffer("ParameterizedInstantiateInstruction[args::").append(Arrays.asList(args)).append(", sequenceId::").append(sequenceId).append("]")
+					.toString();
+		}
+	}
+
+	/**
+	 * A constructor resolved for a class, replaced as a whole like a
+	 * Resolution.
+	 */
+	static final class ConstructorResolution {
+		final Class<?> clazz;
+		final MethodHandle constructor;
+
+		ConstructorResolution(Class<?> clazz_p, MethodHandle constructor_p) {
+			clazz = clazz_p;
+			constructor = constructor_p;
+		}
+	}
+
+	/**
+	 * The default constructor resolved for a class, replaced as a whole like
+	 * a ConstructorResolution.
+	 */
+	static final class DefaultConstructorResolution {
+		final Class<?> clazz;
+		final ConstructorResolver.DefaultConstructor constructor;
+
+		DefaultConstructorResolution(Class<?> clazz_p, ConstructorResolver.DefaultConstructor constructor_p) {
+			clazz = clazz_p;
+			constructor = constructor_p;
+		}
+	}
+
+	/**
+	 * Sets a field on the class being built. Each kind of value has its own
+	 * subclass that holds only that value, in its own type, so an instruction
+	 * carries nothing it does not write.
+	 */
+	static abstract class FieldInstruction extends BaseInstruction implements AssemblyInstruction {
+		final String fieldName;
+		/**
+		 * The class that declares the field, or null to search the class
+		 * being built. A declaring class lets you set a private field on a
+		 * parent class that is masked by the target type or any interviening
+		 * class in the hierarchy.
+		 */
+		final Class<?> declaringClass;
+		/**
+		 * The class the field was last resolved against, and the result.
+		 */
+		private Resolution resolution = null;
+
+		FieldInstruction(String fn, Class<?> declaringClass_p) {
+			fieldName = fn;
+			declaringClass = declaringClass_p;
+		}
+
+		/**
+		 * 
+		 */
+		public void invoke(BuildContext context) {
+			apply(context.instance, context.clazz);
+		}
+
+		/**
+		 * Sets the field of an instance of the class being built.
+		 */
+		void apply(Object instance, Class<?> clazz) {
+			try {
+				write(resolveWriter(clazz), instance);
+			} catch (Exception ex) {
+				throw new RuntimeException("", ex);
+			}
+		}
+
+		/**
+		 * Writes the value through the writer of the field.
+		 */
+		abstract void write(FieldWriter writer, Object instance) throws IllegalAccessException;
+
+		/**
+		 * @return The type of the value, primitive for the primitive kinds
+		 */
+		abstract Class<?> getValueType();
+
+		/**
+		 * @return The value, boxed when it is primitive
+		 */
+		abstract Object getValue();
+
+		protected abstract String getValueString();
+
+		/**
+		 * Binds the value to the setter of the field. Writes that can not be
+		 * bound, because the field is missing or the value does not fit it,
+		 * are left to fail when they run.
+		 */
+		public MethodHandle compile(Class<?> clazz) {
+			MethodHandle step = null;
+			try {
+				FieldWriter writer = resolveWriter(clazz);
+				if (writer instanceof FieldWriter.HandleWriter) {
+					step = AssemblyCompiler.bindWrite(((FieldWriter.HandleWriter) writer).getSetter(), writer.getField().getType(), getValueType(),
+							getValue());
+				}
+			} catch (NoSuchFieldException ignored) {
+			}
+			if (step == null) {
+				step = AssemblyCompiler.applying(FieldInstruction.class, this, clazz);
+			}
+			return step;
+		}
+
+		/**
+		 * The field this instruction writes, if it is certain to write it
+		 * without failing, see PlanOptimizer.
+		 * 
+		 * @param clazz
+		 *            The class being built
+		 * @return The field, or null if the field is missing, is written
+		 *         reflectively, or does not accept the value
+		 */
+		Field getWrittenField(Class<?> clazz) {
+			try {
+				FieldWriter writer = resolveWriter(clazz);
+				if (writer instanceof FieldWriter.HandleWriter
+						&& AssemblyCompiler.bindWrite(((FieldWriter.HandleWriter) writer).getSetter(), writer.getField().getType(),
+								getValueType(), getValue()) != null) {
+					return writer.getField();
+				}
+			} catch (NoSuchFieldException ignored) {
+			}
+			return null;
+		}
+
+		/**
+		 * @return The class the field is looked up in
+		 */
+		Class<?> getLookupClass(Class<?> clazz) {
+			return (declaringClass == null) ? clazz : declaringClass;
+		}
+
+		/**
+		 * Resolves the field's writer once for the class being built and
+		 * reuses it on later builds of the same class.
+		 * 
+		 * @param clazz
+		 *            The class being built
+		 * @return The writer of the Field requested by name
+		 * @throws NoSuchFieldException
+		 *             Field was not found in this class hierarchy.
+		 */
+		private FieldWriter resolveWriter(Class<?> clazz) throws NoSuchFieldException {
+			Resolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				resolved = new Resolution(clazz, findWriter(getLookupClass(clazz), fieldName));
+				resolution = resolved;
+			}
+			return resolved.writer;
+		}
+
+		/**
+		 * Locate the field that needs to be set by inspecting the class being
+		 * built. If not found look to the parent class. Continue back to
+		 * <code>java.lang.Object</code>. If not found throw a
+		 * NoSuchFieldException to indicate that the field was not located.
+		 * The search is answered from the shared FieldIndex of the class.
+		 * 
+		 * @param clazz
+		 *            The initial class, the one that's being built
+		 * @param fieldName
+		 *            The name of the field to be found
+		 * @return The writer bound to the Field requested by name
+		 * @throws NoSuchFieldException
+		 *             Field was not found in this class hierarchy.
+		 */
+		protected FieldWriter findWriter(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+			FieldWriter writer = FieldIndex.of(clazz).getWriter(fieldName);
+			if (writer == null) {
+				throw new NoSuchFieldException(new StringBuffer("Field not found for name ").append(fieldName).toString());
+			}
+			return writer;
+		}
+
+		// @Override
+		public String toString() {
+			return new StringBuffer((declaringClass == null) ? "setField[fieldName::" : "setPrivateField[fieldName::").append(fieldName).append("(")
+					.append(getValueType().getName()).append("), value::").append(getValueString()).append(", sequenceId::").append(sequenceId)
+					.append("]").toString();
+		}
+	}
+
+	/**
+	 * Sets a field to an object. The primitive constructors box their value;
+	 * the DSL uses the primitive kinds below instead.
+	 */
+	static class SetFieldInstruction extends FieldInstruction {
+		final Object value;
+
+		/**
+		 * @param fn
+		 *            The complete name of the field to be set
+		 * @param v
+		 *            The value to set
+		 */
+		public SetFieldInstruction(String fn, Object v) {
+			this(fn, v, null);
+		}
+
+		/**
+		 * @param fn
+		 *            The complete name of the field to be set
+		 * @param v
+		 *            The value to set
+		 * @param declaringClass_p
+		 *            The class that declares the field
+		 */
+		public SetFieldInstruction(String fn, Object v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		//
+		// pre-Java 1.5 support
+		//
+
+		public SetFieldInstruction(String fn, boolean v) {
+			this(fn, Boolean.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, byte v) {
+			this(fn, Byte.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, char v) {
+			this(fn, Character.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, short v) {
+			this(fn, Short.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, int v) {
+			this(fn, Integer.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, long v) {
+			this(fn, Long.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, float v) {
+			this(fn, Float.valueOf(v));
+		}
+
+		public SetFieldInstruction(String fn, double v) {
+			this(fn, Double.valueOf(v));
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.set(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return (value == null) ? Object.class : value.getClass();
+		}
+
+		Object getValue() {
+			return value;
+		}
+
+		protected String getValueString() {
+			return String.valueOf(value);
+		}
+	}
+
+	static final class BooleanFieldInstruction extends FieldInstruction {
+		final boolean value;
+
+		BooleanFieldInstruction(String fn, boolean v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setBoolean(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Boolean.TYPE;
+		}
+
+		Object getValue() {
+			return Boolean.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Boolean.toString(value);
+		}
+	}
+
+	static final class ByteFieldInstruction extends FieldInstruction {
+		final byte value;
+
+		ByteFieldInstruction(String fn, byte v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setByte(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Byte.TYPE;
+		}
+
+		Object getValue() {
+			return Byte.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Byte.toString(value);
+		}
+	}
+
+	static final class CharFieldInstruction extends FieldInstruction {
+		final char value;
+
+		CharFieldInstruction(String fn, char v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setChar(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Character.TYPE;
+		}
+
+		Object getValue() {
+			return Character.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Character.toString(value);
+		}
+	}
+
+	static final class ShortFieldInstruction extends FieldInstruction {
+		final short value;
+
+		ShortFieldInstruction(String fn, short v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setShort(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Short.TYPE;
+		}
+
+		Object getValue() {
+			return Short.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Short.toString(value);
+		}
+	}
+
+	static final class IntFieldInstruction extends FieldInstruction {
+		final int value;
+
+		IntFieldInstruction(String fn, int v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setInt(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Integer.TYPE;
+		}
+
+		Object getValue() {
+			return Integer.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Integer.toString(value);
+		}
+	}
+
+	static final class LongFieldInstruction extends FieldInstruction {
+		final long value;
+
+		LongFieldInstruction(String fn, long v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setLong(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Long.TYPE;
+		}
+
+		Object getValue() {
+			return Long.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Long.toString(value);
+		}
+	}
+
+	static final class FloatFieldInstruction extends FieldInstruction {
+		final float value;
+
+		FloatFieldInstruction(String fn, float v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setFloat(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Float.TYPE;
+		}
+
+		Object getValue() {
+			return Float.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Float.toString(value);
+		}
+	}
+
+	static final class DoubleFieldInstruction extends FieldInstruction {
+		final double value;
+
+		DoubleFieldInstruction(String fn, double v, Class<?> declaringClass_p) {
+			super(fn, declaringClass_p);
+			value = v;
+		}
+
+		void write(FieldWriter writer, Object instance) throws IllegalAccessException {
+			writer.setDouble(instance, value);
+		}
+
+		Class<?> getValueType() {
+			return Double.TYPE;
+		}
+
+		Object getValue() {
+			return Double.valueOf(value);
+		}
+
+		protected String getValueString() {
+			return Double.toString(value);
+		}
+	}
+
+	/**
+	 * Carries out adjacent field writes as one instruction, so that the
+	 * compiled step fetches the instance once for all of them. Made by
+	 * PlanOptimizer, never by the DSL.
+	 */
+	static final class BulkFieldInstruction extends BaseInstruction implements AssemblyInstruction {
+		final FieldInstruction[] writes;
+
+		BulkFieldInstruction(FieldInstruction[] writes_p) {
+			writes = writes_p;
+		}
+
+		public void invoke(BuildContext context) {
+			for (int idx = 0; idx < writes.length; idx++) {
+				writes[idx].invoke(context);
+			}
+		}
+
+		public MethodHandle compile(Class<?> clazz) {
+			List<MethodHandle> steps = new ArrayList<MethodHandle>(writes.length);
+			for (int idx = 0; idx < writes.length; idx++) {
+				steps.add(writes[idx].compile(clazz));
+			}
+			return AssemblyCompiler.bulk(steps);
+		}
+
+		// @Override
+		public String toString() {
+			return new StringBuffer("bulkSet[writes::").append(Arrays.asList(writes)).append(", sequenceId::").append(sequenceId).append("]")
+					.toString();
+		}
+	}
+
+	/**
+	 * Sets a field from a function of the index of the build. Subclasses
+	 * write the value in its own primitive type, so nothing is boxed.
+	 */
+	static abstract class IndexedSetFieldInstruction extends BaseInstruction implements AssemblyInstruction {
+		final String fieldName;
+		/**
+		 * The class the field was last resolved against, and the result.
+		 */
+		private Resolution resolution = null;
+
+		IndexedSetFieldInstruction(String fn) {
+			fieldName = fn;
+		}
+
+		public void invoke(BuildContext context) {
+			apply(context.instance, context.clazz, context.index);
+		}
+
+		void apply(Object instance, Class<?> clazz, int index) {
+			Resolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				try {
+					resolved = new Resolution(clazz, findWriter(clazz));
+				} catch (NoSuchFieldException nsfe) {
+					throw new RuntimeException("", nsfe);
+				}
+				resolution = resolved;
+			}
+			applyWith(resolved.writer, instance, index);
+		}
+
+		void applyWith(FieldWriter writer, Object instance, int index) {
+			try {
+				write(writer, instance, index);
+			} catch (Exception ex) {
+				throw new RuntimeException("", ex);
+			}
+		}
+
+		/**
+		 * Writes the value for index.
+		 */
+		abstract void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException;
+
+		/**
+		 * Binds the resolved writer, leaving a step that takes the instance
+		 * and its index. A missing field is left to fail when it runs.
+		 */
+		public MethodHandle compile(Class<?> clazz) {
+			try {
+				MethodType type = MethodType.methodType(Void.TYPE, FieldWriter.class, Object.class, Integer.TYPE);
+				MethodHandle applyWith = AssemblyCompiler.lookup.findVirtual(IndexedSetFieldInstruction.class, "applyWith", type);
+				try {
+					return MethodHandles.insertArguments(applyWith.bindTo(this), 0, findWriter(clazz));
+				} catch (NoSuchFieldException nsfe) {
+					type = MethodType.methodType(Void.TYPE, Object.class, Class.class, Integer.TYPE);
+					MethodHandle apply = AssemblyCompiler.lookup.findVirtual(IndexedSetFieldInstruction.class, "apply", type);
+					return MethodHandles.insertArguments(apply.bindTo(this), 1, clazz);
+				}
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException(roe);
+			}
+		}
+
+		protected FieldWriter findWriter(Class<?> clazz) throws NoSuchFieldException {
+			FieldWriter writer = FieldIndex.of(clazz).getWriter(fieldName);
+			if (writer == null) {
+				throw new NoSuchFieldException(new StringBuffer("Field not found for name ").append(fieldName).toString());
+			}
+			return writer;
+		}
+
+		protected abstract String getKind();
+
+		// @Override
+		public String toString() {
+			return new StringBuffer("setIndexedField[fieldName::").append(fieldName).append("(").append(getKind()).append("), sequenceId::")
+					.append(sequenceId).append("]").toString();
+		}
+	}
+
+	static class IndexedObjectInstruction extends IndexedSetFieldInstruction {
+		final IntFunction<?> values;
+
+		IndexedObjectInstruction(String fn, IntFunction<?> values_p) {
+			super(fn);
+			values = values_p;
+		}
+
+		void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException {
+			writer.set(instance, values.apply(index));
+		}
+
+		protected String getKind() {
+			return "java.lang.Object";
+		}
+	}
+
+	static class IndexedIntInstruction extends IndexedSetFieldInstruction {
+		final IntUnaryOperator values;
+
+		IndexedIntInstruction(String fn, IntUnaryOperator values_p) {
+			super(fn);
+			values = values_p;
+		}
+
+		void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException {
+			writer.setInt(instance, values.applyAsInt(index));
+		}
+
+		protected String getKind() {
+			return "int";
+		}
+	}
+
+	static class IndexedLongInstruction extends IndexedSetFieldInstruction {
+		final IntToLongFunction values;
+
+		IndexedLongInstruction(String fn, IntToLongFunction values_p) {
+			super(fn);
+			values = values_p;
+		}
+
+		void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException {
+			writer.setLong(instance, values.applyAsLong(index));
+		}
+
+		protected String getKind() {
+			return "long";
+		}
+	}
+
+	static class IndexedDoubleInstruction extends IndexedSetFieldInstruction {
+		final IntToDoubleFunction values;
+
+		IndexedDoubleInstruction(String fn, IntToDoubleFunction values_p) {
+			super(fn);
+			values = values_p;
+		}
+
+		void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException {
+			writer.setDouble(instance, values.applyAsDouble(index));
+		}
+
+		protected String getKind() {
+			return "double";
+		}
+	}
+
+	static class IndexedBooleanInstruction extends IndexedSetFieldInstruction {
+		final IntPredicate values;
+
+		IndexedBooleanInstruction(String fn, IntPredicate values_p) {
+			super(fn);
+			values = values_p;
+		}
+
+		void write(FieldWriter writer, Object instance, int index) throws IllegalAccessException {
+			writer.setBoolean(instance, values.test(index));
+		}
+
+		protected String getKind() {
+			return "boolean";
+		}
+	}
+
+	/**
+	 * A field writer resolved against a class. The pair is replaced as a
+	 * whole, so a build on another thread never sees one without the other.
+	 */
+	static final class Resolution {
+		final Class<?> clazz;
+		final FieldWriter writer;
+
+		Resolution(Class<?> clazz_p, FieldWriter writer_p) {
+			clazz = clazz_p;
+			writer = writer_p;
+		}
+	}
+
+	/**
+	 * Invokes a method regardless of it's accessibility. What the method
+	 * returns is kept in the context of the build, for later instructions to
+	 * use, see setFieldFromResult.
+	 */
+	static class MethodInvocationInstruction extends BaseInstruction implements AssemblyInstruction {
+		String methodName = null;
+		Object[] args = null;
+		/**
+		 * The class the method was last resolved for, and the result.
+		 */
+		private MethodResolution resolution = null;
+
+		public MethodInvocationInstruction(String methodName_p, Object[] args_p) {
+			methodName = methodName_p;
+			args = (args_p == null) ? new Object[0] : args_p.clone();
+		}
+
+		/**
+		 * Invokes the method on the instance being built. A method that can
+		 * not be found is silently skipped.
+		 */
+		public void invoke(BuildContext context) {
+			MethodResolver.ResolvedMethod method;
+			try {
+				method = resolveMethod(context.clazz);
+			} catch (Exception e) {
+				throw new RuntimeException("", e);
+			}
+			if (method.handle != null) {
+				Object result;
+				try {
+					result = (Object) method.handle.invokeExact(context.instance, args);
+				} catch (Throwable t) {
+					throw new RuntimeException("", new InvocationTargetException(t));
+				}
+				if (method.returnsValue) {
+					context.putResult(methodName, result);
+				}
+			}
+		}
+
+		/**
+		 * Binds the method and its arguments, leaving only the instance, and
+		 * keeps what it returns in the context.
+		 */
+		public MethodHandle compile(Class<?> clazz) {
+			MethodResolver.ResolvedMethod method;
+			try {
+				method = resolveMethod(clazz);
+			} catch (Exception e) {
+				return AssemblyCompiler.applying(MethodInvocationInstruction.class, this);
+			}
+			if (method.handle == null) {
+				return AssemblyCompiler.NOOP;
+			}
+			MethodHandle bound = AssemblyCompiler.invocation(MethodHandles.insertArguments(method.handle, 1, (Object) args));
+			if (method.returnsValue) {
+				return AssemblyCompiler.keepingResult(methodName, bound);
+			}
+			return bound.asType(AssemblyCompiler.STEP);
+		}
+
+		/**
+		 * Resolves the method by name and arguments once for the class being
+		 * built, see MethodResolver.
+		 */
+		private MethodResolver.ResolvedMethod resolveMethod(Class<?> clazz) throws NoSuchMethodException, IllegalAccessException {
+			MethodResolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				resolved = new MethodResolution(clazz, MethodResolver.of(clazz).resolve(methodName, args));
+				resolution = resolved;
+			}
+			return resolved.method;
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuffer("invokeMethod[methodName::").append(methodName).append(", sequenceId::").append(sequenceId).append("]").toString();
+		}
+	}
+
+	/**
+	 * Calls a setter supplied as a functional interface. Subclasses hold the
+	 * value in its own primitive type. Nothing is resolved; the compiled step
+	 * calls the setter with the value bound.
+	 */
+	static abstract class AbstractSetterInstruction extends BaseInstruction implements AssemblyInstruction {
+
+		public void invoke(BuildContext context) {
+			try {
+				apply(context.instance);
+			} catch (Throwable t) {
+				throw new RuntimeException("", new InvocationTargetException(t));
+			}
+		}
+
+		abstract void apply(Object instance);
+
+		/**
+		 * @return The setter's accept method, bound to the setter and the
+		 *         value, leaving the instance
+		 */
+		abstract MethodHandle bind() throws ReflectiveOperationException;
+
+		public MethodHandle compile(Class<?> clazz) {
+			try {
+				return AssemblyCompiler.invocation(bind()).asType(AssemblyCompiler.STEP);
+			} catch (ReflectiveOperationException roe) {
+				return AssemblyCompiler.applying(AbstractSetterInstruction.class, this);
+			}
+		}
+
+		protected abstract String getValueString();
+
+		// @Override
+		public String toString() {
+			return new StringBuffer("set[value::").append(getValueString()).append(", sequenceId::").append(sequenceId).append("]").toString();
+		}
+	}
+
+	static class SetterInstruction extends AbstractSetterInstruction {
+		final BiConsumer<Object, Object> setter;
+		final Object value;
+
+		SetterInstruction(BiConsumer<Object, Object> setter_p, Object value_p) {
+			setter = setter_p;
+			value = value_p;
+		}
+
+		void apply(Object instance) {
+			setter.accept(instance, value);
+		}
+
+		MethodHandle bind() throws ReflectiveOperationException {
+			MethodHandle accept = AssemblyCompiler.lookup.findVirtual(BiConsumer.class, "accept",
+					MethodType.methodType(Void.TYPE, Object.class, Object.class));
+			return MethodHandles.insertArguments(accept.bindTo(setter), 1, value);
+		}
+
+		protected String getValueString() {
+			return String.valueOf(value);
+		}
+	}
+
+	static class IntSetterInstruction extends AbstractSetterInstruction {
+		final ObjIntConsumer<Object> setter;
+		final int value;
+
+		IntSetterInstruction(ObjIntConsumer<Object> setter_p, int value_p) {
+			setter = setter_p;
+			value = value_p;
+		}
+
+		void apply(Object instance) {
+			setter.accept(instance, value);
+		}
+
+		MethodHandle bind() throws ReflectiveOperationException {
+			MethodHandle accept = AssemblyCompiler.lookup.findVirtual(ObjIntConsumer.class, "accept",
+					MethodType.methodType(Void.TYPE, Object.class, Integer.TYPE));
+			return MethodHandles.insertArguments(accept.bindTo(setter), 1, Integer.valueOf(value));
+		}
+
+		protected String getValueString() {
+			return Integer.toString(value);
+		}
+	}
+
+	static class LongSetterInstruction extends AbstractSetterInstruction {
+		final ObjLongConsumer<Object> setter;
+		final long value;
+
+		LongSetterInstruction(ObjLongConsumer<Object> setter_p, long value_p) {
+			setter = setter_p;
+			value = value_p;
+		}
+
+		void apply(Object instance) {
+			setter.accept(instance, value);
+		}
+
+		MethodHandle bind() throws ReflectiveOperationException {
+			MethodHandle accept = AssemblyCompiler.lookup.findVirtual(ObjLongConsumer.class, "accept",
+					MethodType.methodType(Void.TYPE, Object.class, Long.TYPE));
+			return MethodHandles.insertArguments(accept.bindTo(setter), 1, Long.valueOf(value));
+		}
+
+		protected String getValueString() {
+			return Long.toString(value);
+		}
+	}
+
+	static class DoubleSetterInstruction extends AbstractSetterInstruction {
+		final ObjDoubleConsumer<Object> setter;
+		final double value;
+
+		DoubleSetterInstruction(ObjDoubleConsumer<Object> setter_p, double value_p) {
+			setter = setter_p;
+			value = value_p;
+		}
+
+		void apply(Object instance) {
+			setter.accept(instance, value);
+		}
+
+		MethodHandle bind() throws ReflectiveOperationException {
+			MethodHandle accept = AssemblyCompiler.lookup.findVirtual(ObjDoubleConsumer.class, "accept",
+					MethodType.methodType(Void.TYPE, Object.class, Double.TYPE));
+			return MethodHandles.insertArguments(accept.bindTo(setter), 1, Double.valueOf(value));
+		}
+
+		protected String getValueString() {
+			return Double.toString(value);
+		}
+	}
+
+	/**
+	 * A method resolved for a class, replaced as a whole like a Resolution.
+	 */
+	static final class MethodResolution {
+		final Class<?> clazz;
+		final MethodResolver.ResolvedMethod method;
+
+		MethodResolution(Class<?> clazz_p, MethodResolver.ResolvedMethod method_p) {
+			clazz = clazz_p;
+			method = method_p;
+		}
+	}
+
+	/**
+	 * Sets a field to the value a method invoked earlier in the same build
+	 * returned.
+	 */
+	static class SetFieldFromResultInstruction extends BaseInstruction implements AssemblyInstruction {
+		final String fieldName;
+		final String methodName;
+		/**
+		 * The class the field was last resolved against, and the result.
+		 */
+		private Resolution resolution = null;
+
+		SetFieldFromResultInstruction(String fieldName_p, String methodName_p) {
+			fieldName = fieldName_p;
+			methodName = methodName_p;
+		}
+
+		public void invoke(BuildContext context) {
+			Resolution resolved;
+			try {
+				resolved = resolve(context.clazz);
+			} catch (NoSuchFieldException nsfe) {
+				throw new RuntimeException("", nsfe);
+			}
+			write(context, resolved.writer);
+		}
+
+		/**
+		 * Sets the field to the result kept in the context of the build.
+		 */
+		void write(BuildContext context, FieldWriter writer) {
+			try {
+				if (!context.hasResult(methodName)) {
+					throw new IllegalStateException(new StringBuffer("No result of method ").append(methodName).append(" to set ").append(fieldName)
+							.toString());
+				}
+				writer.set(context.instance, context.getResult(methodName));
+			} catch (Exception ex) {
+				throw new RuntimeException("", ex);
+			}
+		}
+
+		/**
+		 * Binds the writer of the field, so a compiled build only reads the
+		 * result from its context. A field the class does not have is
+		 * reported here rather than on the first build.
+		 */
+		public MethodHandle compile(Class<?> clazz) {
+			FieldWriter writer;
+			try {
+				writer = resolve(clazz).writer;
+			} catch (NoSuchFieldException nsfe) {
+				throw new RuntimeException("", nsfe);
+			}
+			try {
+				MethodHandle write = AssemblyCompiler.lookup.findVirtual(SetFieldFromResultInstruction.class, "write",
+						MethodType.methodType(Void.TYPE, BuildContext.class, FieldWriter.class));
+				return MethodHandles.insertArguments(write.bindTo(this), 1, writer);
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException(roe);
+			}
+		}
+
+		/**
+		 * Resolves the field's writer once for the class being built and
+		 * reuses it on later builds of the same class.
+		 * 
+		 * @param clazz
+		 *            The class being built
+		 * @return The class and the writer of the field
+		 * @throws NoSuchFieldException
+		 *             Field was not found in this class hierarchy.
+		 */
+		private Resolution resolve(Class<?> clazz) throws NoSuchFieldException {
+			Resolution resolved = resolution;
+			if (resolved == null || resolved.clazz != clazz) {
+				FieldWriter writer = FieldIndex.of(clazz).getWriter(fieldName);
+				if (writer == null) {
+					throw new NoSuchFieldException(new StringBuffer("Field not found for name ").append(fieldName).toString());
+				}
+				resolved = new Resolution(clazz, writer);
+				resolution = resolved;
+			}
+			return resolved;
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuffer("setFieldFromResult[fieldName::").append(fieldName).append(", methodName::").append(methodName).append(
+					", sequenceId::").append(sequenceId).append("]").toString();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indexes every field visible from a class, keyed by name. The index for a
+ * class is built once, from its own declared fields and the index of its
+ * superclass, and is shared by every builder that targets that class.
+ * 
+ * When a name is declared more than once in the hierarchy the most derived
+ * declaration wins, matching the lookup order used by setField. Fields masked
+ * this way are reached by asking for the index of the declaring class, which
+ * is what setField(name, value, class) does.
+ */
+final class FieldIndex {
+
+	/**
+	 * Fields by name, opened for access where the module system allows it.
+	 */
+	private final Map<String, Field> fields;
+
+	/**
+	 * Writers for the fields declared by the indexed class, created the first
+	 * time each field is resolved.
+	 */
+	private final Map<String, FieldWriter> writers = new ConcurrentHashMap<String, FieldWriter>();
+
+	FieldIndex(Class<?> clazz) {
+		fields = new HashMap<String, Field>();
+		Class<?> superclass = clazz.getSuperclass();
+		if (superclass != null && !Object.class.equals(superclass)) {
+			fields.putAll(of(superclass).fields);
+		}
+		Field[] declared = clazz.getDeclaredFields();
+		for (int idx = 0; idx < declared.length; idx++) {
+			Field field = declared[idx];
+			// a field we cannot open will fail when it is set, as it always has
+			field.trySetAccessible();
+			fields.put(field.getName(), field);
+		}
+	}
+
+	/**
+	 * @param clazz
+	 *            The class to be indexed
+	 * @return The shared index of clazz, held by the MetadataRegistry
+	 */
+	static FieldIndex of(Class<?> clazz) {
+		return MetadataRegistry.of(clazz).getFieldIndex();
+	}
+
+	/**
+	 * @param fieldName
+	 *            The complete name of the field
+	 * @return The most derived field with that name, or null if there is none
+	 */
+	Field getField(String fieldName) {
+		return fields.get(fieldName);
+	}
+
+	/**
+	 * Creates the writer of every field visible from the indexed class, ahead
+	 * of use, see EasyBuilder.prewarm.
+	 * 
+	 * @return The number of fields
+	 */
+	int prewarm() {
+		Iterator<String> itr = fields.keySet().iterator();
+		while (itr.hasNext()) {
+			getWriter(itr.next());
+		}
+		return fields.size();
+	}
+
+	/**
+	 * Locates the writer for a field. Writers are kept by the index of the
+	 * declaring class, so every class that sees the field shares one writer.
+	 * 
+	 * @param fieldName
+	 *            The complete name of the field
+	 * @return The writer of the most derived field with that name, or null if
+	 *         there is none
+	 */
+	FieldWriter getWriter(String fieldName) {
+		final Field field = fields.get(fieldName);
+		if (field == null) {
+			return null;
+		}
+		FieldIndex declaringIndex = of(field.getDeclaringClass());
+		FieldWriter writer = declaringIndex.writers.get(fieldName);
+		if (writer == null) {
+			writer = declaringIndex.writers.computeIfAbsent(fieldName, name -> FieldWriter.of(field));
+		}
+		return writer;
+	}
+}
@@ -0,0 +1,431 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Writes a value into one field of an object. A writer is bound to its field
+ * once and then reused by every build that sets that field, so neither the
+ * access check nor the choice of primitive type is repeated per write.
+ * 
+ * Writers follow the rules of <code>java.lang.reflect.Field</code>: a
+ * primitive value may be widened to the type of the field, and an object is
+ * unwrapped before it is written into a primitive field. Any other
+ * combination is rejected with an IllegalArgumentException.
+ */
+abstract class FieldWriter {
+
+	protected final Field field;
+
+	protected FieldWriter(Field field_p) {
+		field = field_p;
+	}
+
+	/**
+	 * Creates the writer for a field. Instance fields that can be opened are
+	 * written through a VarHandle, by a writer specialized to the field's type; static and
+	 * final fields, and fields whose module does not open them to
+	 * EasyBuilder, are written reflectively.
+	 * 
+	 * @param field
+	 *            The field to be written
+	 * @return A writer bound to field
+	 */
+	static FieldWriter of(Field field) {
+		int modifiers = field.getModifiers();
+		if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+			return new ReflectiveWriter(field);
+		}
+		VarHandle handle;
+		try {
+			handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+		} catch (IllegalAccessException iae) {
+			return new ReflectiveWriter(field);
+		}
+		Class<?> type = field.getType();
+		FieldWriter writer;
+		if (Boolean.TYPE.equals(type)) {
+			writer = new BooleanWriter(field, handle);
+		} else if (Character.TYPE.equals(type)) {
+			writer = new CharWriter(field, handle);
+		} else if (Byte.TYPE.equals(type)) {
+			writer = new ByteWriter(field, handle);
+		} else if (Short.TYPE.equals(type)) {
+			writer = new ShortWriter(field, handle);
+		} else if (Integer.TYPE.equals(type)) {
+			writer = new IntWriter(field, handle);
+		} else if (Long.TYPE.equals(type)) {
+			writer = new LongWriter(field, handle);
+		} else if (Float.TYPE.equals(type)) {
+			writer = new FloatWriter(field, handle);
+		} else if (Double.TYPE.equals(type)) {
+			writer = new DoubleWriter(field, handle);
+		} else {
+			writer = new ReferenceWriter(field, handle);
+		}
+		return writer;
+	}
+
+	Field getField() {
+		return field;
+	}
+
+	/**
+	 * Writes an object, unwrapping it when the field is primitive. A wrapper
+	 * that does not fit is reported by its own class, as Field.set does.
+	 */
+	void set(Object target, Object value) throws IllegalAccessException {
+		try {
+			unwrapAndSet(target, value);
+		} catch (IllegalArgumentException iae) {
+			throw cannotSet(value == null ? "null value" : value.getClass().getName());
+		}
+	}
+
+	private void unwrapAndSet(Object target, Object value) throws IllegalAccessException {
+		if (value instanceof Boolean) {
+			setBoolean(target, ((Boolean) value).booleanValue());
+		} else if (value instanceof Character) {
+			setChar(target, ((Character) value).charValue());
+		} else if (value instanceof Byte) {
+			setByte(target, ((Byte) value).byteValue());
+		} else if (value instanceof Short) {
+			setShort(target, ((Short) value).shortValue());
+		} else if (value instanceof Integer) {
+			setInt(target, ((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			setLong(target, ((Long) value).longValue());
+		} else if (value instanceof Float) {
+			setFloat(target, ((Float) value).floatValue());
+		} else if (value instanceof Double) {
+			setDouble(target, ((Double) value).doubleValue());
+		} else {
+			throw cannotSet(value == null ? "null value" : value.getClass().getName());
+		}
+	}
+
+	//
+	// Each primitive setter widens to the next wider type until it reaches a
+	// writer that accepts it. A value that does not widen to the field's type
+	// is rejected up front, so that the message names the type given rather
+	// than the widest one the chain reached.
+	//
+
+	void setBoolean(Object target, boolean value) throws IllegalAccessException {
+		throw cannotSet("boolean");
+	}
+
+	void setByte(Object target, byte value) throws IllegalAccessException {
+		checkWidens(Byte.TYPE);
+		setShort(target, value);
+	}
+
+	void setChar(Object target, char value) throws IllegalAccessException {
+		checkWidens(Character.TYPE);
+		setInt(target, value);
+	}
+
+	void setShort(Object target, short value) throws IllegalAccessException {
+		checkWidens(Short.TYPE);
+		setInt(target, value);
+	}
+
+	void setInt(Object target, int value) throws IllegalAccessException {
+		checkWidens(Integer.TYPE);
+		setLong(target, value);
+	}
+
+	void setLong(Object target, long value) throws IllegalAccessException {
+		checkWidens(Long.TYPE);
+		setFloat(target, value);
+	}
+
+	void setFloat(Object target, float value) throws IllegalAccessException {
+		checkWidens(Float.TYPE);
+		setDouble(target, value);
+	}
+
+	void setDouble(Object target, double value) throws IllegalAccessException {
+		throw cannotSet("double");
+	}
+
+	private void checkWidens(Class<?> valueType) {
+		if (!Overloads.isWidening(valueType, field.getType())) {
+			throw cannotSet(valueType.getName());
+		}
+	}
+
+	protected IllegalArgumentException cannotSet(String valueType) {
+		return new IllegalArgumentException(new StringBuffer("Can not set ").append(field.getType().getName()).append(" field ").append(
+				field.getDeclaringClass().getName()).append(".").append(field.getName()).append(" to ").append(valueType).toString());
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuffer(getClass().getSimpleName()).append("[field::").append(field).append("]").toString();
+	}
+
+	/**
+	 * Base of the writers that go through a field's VarHandle. The handle is
+	 * viewed as a MethodHandle of exactly (Object, type)void so that every
+	 * write is an invokeExact with no adaptation at the call.
+	 */
+	abstract static class HandleWriter extends FieldWriter {
+		protected final MethodHandle setter;
+
+		HandleWriter(Field field, VarHandle handle) {
+			super(field);
+			setter = handle.toMethodHandle(VarHandle.AccessMode.SET).asType(
+					MethodType.methodType(Void.TYPE, Object.class, field.getType().isPrimitive() ? field.getType() : Object.class));
+		}
+
+		/**
+		 * @return A MethodHandle of (Object, type)void that writes the field
+		 */
+		MethodHandle getSetter() {
+			return setter;
+		}
+
+		protected RuntimeException rethrow(Throwable t) {
+			if (t instanceof RuntimeException) {
+				return (RuntimeException) t;
+			}
+			if (t instanceof Error) {
+				throw (Error) t;
+			}
+			return new IllegalStateException(t);
+		}
+	}
+
+	static final class BooleanWriter extends HandleWriter {
+
+		BooleanWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setBoolean(Object target, boolean value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class CharWriter extends HandleWriter {
+
+		CharWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setChar(Object target, char value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class ByteWriter extends HandleWriter {
+
+		ByteWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setByte(Object target, byte value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class ShortWriter extends HandleWriter {
+
+		ShortWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setShort(Object target, short value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class IntWriter extends HandleWriter {
+
+		IntWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setInt(Object target, int value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class LongWriter extends HandleWriter {
+
+		LongWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setLong(Object target, long value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class FloatWriter extends HandleWriter {
+
+		FloatWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setFloat(Object target, float value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class DoubleWriter extends HandleWriter {
+
+		DoubleWriter(Field field, VarHandle handle) {
+			super(field, handle);
+		}
+
+		@Override
+		void setDouble(Object target, double value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	static final class ReferenceWriter extends HandleWriter {
+		private final Class<?> type;
+
+		ReferenceWriter(Field field, VarHandle handle) {
+			super(field, handle);
+			type = field.getType();
+		}
+
+		@Override
+		void set(Object target, Object value) {
+			if (value != null && !type.isInstance(value)) {
+				throw cannotSet(value.getClass().getName());
+			}
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	/**
+	 * Falls back to <code>java.lang.reflect.Field</code> for fields that
+	 * cannot be written through a VarHandle.
+	 */
+	static final class ReflectiveWriter extends FieldWriter {
+
+		ReflectiveWriter(Field field) {
+			super(field);
+		}
+
+		@Override
+		void set(Object target, Object value) throws IllegalAccessException {
+			field.set(target, value);
+		}
+
+		@Override
+		void setBoolean(Object target, boolean value) throws IllegalAccessException {
+			field.setBoolean(target, value);
+		}
+
+		@Override
+		void setByte(Object target, byte value) throws IllegalAccessException {
+			field.setByte(target, value);
+		}
+
+		@Override
+		void setChar(Object target, char value) throws IllegalAccessException {
+			field.setChar(target, value);
+		}
+
+		@Override
+		void setShort(Object target, short value) throws IllegalAccessException {
+			field.setShort(target, value);
+		}
+
+		@Override
+		void setInt(Object target, int value) throws IllegalAccessException {
+			field.setInt(target, value);
+		}
+
+		@Override
+		void setLong(Object target, long value) throws IllegalAccessException {
+			field.setLong(target, value);
+		}
+
+		@Override
+		void setFloat(Object target, float value) throws IllegalAccessException {
+			field.setFloat(target, value);
+		}
+
+		@Override
+		void setDouble(Object target, double value) throws IllegalAccessException {
+			field.setDouble(target, value);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+/**
+ * Shares Objenesis instantiators between all builders. Selecting an
+ * instantiation strategy is the expensive part of bypassing a constructor, so
+ * it is done once per class and the result is kept for the life of that
+ * class.
+ *
+ * Instantiators are held with the rest of a class's metadata by the
+ * MetadataRegistry, which never pins a class (or its class loader) that would
+ * otherwise be collected.
+ */
+public final class InstantiatorRegistry {
+
+	/**
+	 * Objenesis' own cache is keyed by class name, which is unsafe once the
+	 * same name is loaded by more than one class loader, so it is disabled.
+	 */
+	private static final Objenesis objenesis = new ObjenesisStd(false);
+
+	private static final LongAdder lookups = new LongAdder();
+
+	private static final LongAdder misses = new LongAdder();
+
+	private InstantiatorRegistry() {
+	}
+
+	/**
+	 * Locates the instantiator for a class, creating it on first use.
+	 *
+	 * @param clazz
+	 *            The class to be instantiated
+	 * @return An instantiator that bypasses the constructors of clazz
+	 */
+	public static ObjectInstantiator<?> getInstantiatorOf(Class<?> clazz) {
+		lookups.increment();
+		return MetadataRegistry.of(clazz).getInstantiator();
+	}
+
+	/**
+	 * Creates the instantiator for a class, see ClassMetadata.
+	 */
+	static ObjectInstantiator<?> newInstantiator(Class<?> clazz) {
+		misses.increment();
+		return objenesis.getInstantiatorOf(clazz);
+	}
+
+	/**
+	 * @return The number of lookups answered by an existing instantiator
+	 */
+	public static long getHitCount() {
+		return lookups.sum() - misses.sum();
+	}
+
+	/**
+	 * @return The number of lookups that had to create an instantiator
+	 */
+	public static long getMissCount() {
+		return misses.sum();
+	}
+}
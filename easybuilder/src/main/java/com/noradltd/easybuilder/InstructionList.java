@@ -0,0 +1,206 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+/**
+ * The instructions of a builder, shared with the builders derived from it.
+ * The list is a chain of frozen segments, shared by every list that derives
+ * from them, followed by the instructions added since the last derivation,
+ * which belong to this list alone. Deriving freezes only those, so its cost
+ * is in the number of instructions added since, never in the length of the
+ * whole list.
+ * 
+ * Appending never touches the shared segments. Any other change to them, a
+ * new instantiation instruction for example, first copies the shared
+ * instructions into this list; the segments themselves never change. Setting
+ * an element to the instruction it already holds is not a change, so
+ * sorting a list that is already in order copies nothing.
+ */
+final class InstructionList extends AbstractList<AssemblyInstruction> implements RandomAccess {
+
+	/**
+	 * The frozen instructions, shared with other lists, or null.
+	 */
+	private Segment shared;
+
+	/**
+	 * The instructions that follow the shared ones, owned by this list.
+	 */
+	private ArrayList<AssemblyInstruction> own = new ArrayList<AssemblyInstruction>();
+
+	InstructionList() {
+	}
+
+	private InstructionList(Segment shared_p) {
+		shared = shared_p;
+	}
+
+	/**
+	 * Derives a list that starts out with the instructions of another. Later
+	 * changes to either list are not seen by the other.
+	 * 
+	 * @param instructions
+	 *            The instructions to share, copied if they are not an
+	 *            InstructionList
+	 * @return The derived list
+	 */
+	static InstructionList derive(List<AssemblyInstruction> instructions) {
+		if (instructions instanceof InstructionList) {
+			return ((InstructionList) instructions).derive();
+		}
+		InstructionList rval = new InstructionList();
+		rval.own.addAll(instructions);
+		return rval;
+	}
+
+	private InstructionList derive() {
+		if (!own.isEmpty()) {
+			shared = new Segment(shared, own.toArray(new AssemblyInstruction[own.size()]));
+			own = new ArrayList<AssemblyInstruction>();
+		}
+		return new InstructionList(shared);
+	}
+
+	/**
+	 * @return The number of instructions shared with other lists
+	 */
+	int getSharedCount() {
+		return (shared == null) ? 0 : shared.size;
+	}
+
+	/**
+	 * @return The number of instructions owned by this list alone
+	 */
+	int getOwnCount() {
+		return own.size();
+	}
+
+	@Override
+	public AssemblyInstruction get(int index) {
+		int sharedCount = getSharedCount();
+		if (index >= sharedCount) {
+			return own.get(index - sharedCount);
+		}
+		if (index < 0) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return shared.get(index);
+	}
+
+	@Override
+	public int size() {
+		return getSharedCount() + own.size();
+	}
+
+	@Override
+	public boolean add(AssemblyInstruction instruction) {
+		modCount++;
+		return own.add(instruction);
+	}
+
+	@Override
+	public void add(int index, AssemblyInstruction instruction) {
+		if (index < getSharedCount()) {
+			unshare();
+		}
+		modCount++;
+		own.add(index - getSharedCount(), instruction);
+	}
+
+	@Override
+	public AssemblyInstruction set(int index, AssemblyInstruction instruction) {
+		if (index < getSharedCount()) {
+			AssemblyInstruction current = get(index);
+			if (current == instruction) {
+				return current;
+			}
+			unshare();
+		}
+		return own.set(index - getSharedCount(), instruction);
+	}
+
+	@Override
+	public AssemblyInstruction remove(int index) {
+		if (index < getSharedCount()) {
+			unshare();
+		}
+		modCount++;
+		return own.remove(index - getSharedCount());
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		shared = null;
+		own.clear();
+	}
+
+	/**
+	 * Copies the shared instructions into this list, before a change that
+	 * the other lists sharing them must not see.
+	 */
+	private void unshare() {
+		ArrayList<AssemblyInstruction> copy = new ArrayList<AssemblyInstruction>(size());
+		for (int idx = 0; idx < getSharedCount(); idx++) {
+			copy.add(shared.get(idx));
+		}
+		copy.addAll(own);
+		shared = null;
+		own = copy;
+	}
+
+	/**
+	 * Instructions frozen by a derivation, following those of the segment
+	 * before.
+	 */
+	private static final class Segment {
+		final Segment previous;
+		final AssemblyInstruction[] items;
+		/**
+		 * The number of instructions in this segment and all before it.
+		 */
+		final int size;
+
+		Segment(Segment previous_p, AssemblyInstruction[] items_p) {
+			previous = previous_p;
+			items = items_p;
+			size = ((previous == null) ? 0 : previous.size) + items.length;
+		}
+
+		AssemblyInstruction get(int index) {
+			Segment segment = this;
+			while (index < segment.size - segment.items.length) {
+				segment = segment.previous;
+			}
+			return segment.items[index - (segment.size - segment.items.length)];
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the durations of one kind of event and keeps a histogram of them.
+ * Durations are bucketed by their highest bit, so bucket n holds those from
+ * 2^(n-1) up to 2^n - 1 nanoseconds, and percentiles are read as the upper
+ * bound of their bucket. Every counter is a LongAdder, so threads recording
+ * at once do not contend; nothing is locked.
+ */
+final class LatencyTimer {
+
+	/**
+	 * Durations of 2^39 nanoseconds, some nine minutes, or more share the
+	 * last bucket.
+	 */
+	static final int BUCKETS = 40;
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	LatencyTimer() {
+		for (int idx = 0; idx < BUCKETS; idx++) {
+			buckets[idx] = new LongAdder();
+		}
+	}
+
+	void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		buckets[bucketOf(nanos)].increment();
+	}
+
+	/**
+	 * Records several events that were timed together, each as taking an
+	 * equal share of the time.
+	 * 
+	 * @param nanos
+	 *            How long they took together
+	 * @param events
+	 *            How many there were
+	 */
+	void record(long nanos, int events) {
+		if (events <= 1) {
+			record(nanos);
+			return;
+		}
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		long share = nanos / events;
+		count.add(events);
+		totalNanos.add(nanos);
+		maxNanos.accumulate(share);
+		buckets[bucketOf(share)].add(events);
+	}
+
+	private static int bucketOf(long nanos) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/**
+	 * Clears the counters. Durations recorded while it does so may be kept
+	 * in part.
+	 */
+	void reset() {
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (int idx = 0; idx < BUCKETS; idx++) {
+			buckets[idx].reset();
+		}
+	}
+
+	/**
+	 * @return The counters as they are now. They are read one after another,
+	 *         not all at once, so a snapshot taken while durations are being
+	 *         recorded may not add up exactly.
+	 */
+	TimingStatistics snapshot() {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int idx = 0; idx < BUCKETS; idx++) {
+			counts[idx] = buckets[idx].sum();
+			total += counts[idx];
+		}
+		long max = maxNanos.get();
+		return new TimingStatistics(count.sum(), totalNanos.sum(), max, percentile(counts, total, 0.50, max), percentile(counts, total, 0.90, max),
+				percentile(counts, total, 0.99, max));
+	}
+
+	/**
+	 * @return The upper bound of the bucket the percentile falls in, but no
+	 *         more than the longest duration
+	 */
+	static long percentile(long[] counts, long total, double fraction, long max) {
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int idx = 0; idx < counts.length; idx++) {
+			seen += counts[idx];
+			if (seen >= rank) {
+				return Math.min(max, (idx == 0) ? 0 : (1L << idx) - 1);
+			}
+		}
+		return max;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the metadata of every class EasyBuilder works with: fields,
+ * constructors, methods and instantiators, see ClassMetadata. FieldIndex,
+ * ConstructorResolver, MethodResolver and InstantiatorRegistry all answer
+ * from here, so there is one cache to size and to watch.
+ * 
+ * The metadata is held through a <code>ClassValue</code>, which stores it
+ * alongside the class itself, and the registry keeps track of the classes
+ * only through weak references. A class, and its class loader, can therefore
+ * be collected as soon as nothing else refers to them, for instance after a
+ * redeployment.
+ * 
+ * The number of classes is bounded, by default by the
+ * <code>easybuilder.metadataCacheSize</code> system property. Once the bound
+ * is exceeded the least recently used classes are evicted, a sixteenth of the
+ * bound at a time so that the sweep is rare. Recency is approximate: a class
+ * is stamped with a clock that only advances when metadata is created, so a
+ * lookup that finds existing metadata writes nothing shared.
+ */
+public final class MetadataRegistry {
+
+	private static volatile int maximumSize = Math.max(1, Integer.getInteger("easybuilder.metadataCacheSize", 4096).intValue());
+
+	private static final LongAdder lookups = new LongAdder();
+
+	private static final LongAdder misses = new LongAdder();
+
+	private static final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Receives the keys of classes that have been collected.
+	 */
+	private static final ReferenceQueue<Class<?>> collected = new ReferenceQueue<Class<?>>();
+
+	/**
+	 * The keys of the classes counted toward the bound. Guarded by itself for
+	 * changes; read freely.
+	 */
+	private static final Set<ClassMetadata.Key> tracked = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Advances each time metadata is created.
+	 */
+	private static volatile long clock = 0;
+
+	private static final ClassValue<ClassMetadata> metadata = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			misses.increment();
+			return new ClassMetadata(type, collected);
+		}
+	};
+
+	private static final Comparator<ClassMetadata.Key> LEAST_RECENTLY_USED = new Comparator<ClassMetadata.Key>() {
+		public int compare(ClassMetadata.Key one, ClassMetadata.Key other) {
+			return Long.compare(one.lastUsed, other.lastUsed);
+		}
+	};
+
+	private MetadataRegistry() {
+	}
+
+	/**
+	 * Locates the metadata of a class, creating it on first use.
+	 * 
+	 * @param clazz
+	 *            The class
+	 * @return The metadata of clazz
+	 */
+	static ClassMetadata of(Class<?> clazz) {
+		lookups.increment();
+		ClassMetadata rval = metadata.get(clazz);
+		if (!rval.tracked) {
+			track(rval);
+		} else {
+			long now = clock;
+			if (rval.key.lastUsed != now) {
+				rval.key.lastUsed = now;
+			}
+		}
+		return rval;
+	}
+
+	private static void track(ClassMetadata entry) {
+		synchronized (tracked) {
+			if (!entry.tracked) {
+				expunge();
+				entry.key.lastUsed = ++clock;
+				tracked.add(entry.key);
+				entry.tracked = true;
+				evict(tracked.size() - maximumSize);
+			}
+		}
+	}
+
+	/**
+	 * Forgets the classes that have been collected.
+	 */
+	private static void expunge() {
+		Reference<? extends Class<?>> key;
+		while ((key = collected.poll()) != null) {
+			tracked.remove(key);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used classes once there are too many.
+	 * 
+	 * @param excess
+	 *            The number of classes over the bound
+	 */
+	private static void evict(int excess) {
+		if (excess <= 0) {
+			return;
+		}
+		int count = Math.min(tracked.size(), excess + maximumSize / 16);
+		ClassMetadata.Key[] keys = tracked.toArray(new ClassMetadata.Key[0]);
+		Arrays.sort(keys, LEAST_RECENTLY_USED);
+		for (int idx = 0; idx < count; idx++) {
+			tracked.remove(keys[idx]);
+			Class<?> clazz = keys[idx].get();
+			if (clazz != null) {
+				metadata.remove(clazz);
+			}
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * @return The number of lookups answered by existing metadata
+	 */
+	public static long getHitCount() {
+		return lookups.sum() - misses.sum();
+	}
+
+	/**
+	 * @return The number of lookups that had to create metadata
+	 */
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return The share of lookups answered by existing metadata, one if
+	 *         there have been none
+	 */
+	public static double getHitRate() {
+		long total = lookups.sum();
+		return (total == 0) ? 1.0 : (double) (total - misses.sum()) / total;
+	}
+
+	/**
+	 * @return The number of classes evicted to stay within the bound
+	 */
+	public static long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return The number of classes whose metadata is held
+	 */
+	public static int getSize() {
+		synchronized (tracked) {
+			expunge();
+			return tracked.size();
+		}
+	}
+
+	/**
+	 * @return The most classes whose metadata is held at once
+	 */
+	public static int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Bounds the number of classes whose metadata is held, evicting the least
+	 * recently used if there are already more.
+	 * 
+	 * @param maximumSize_p
+	 *            The most classes, at least one
+	 */
+	public static void setMaximumSize(int maximumSize_p) {
+		if (maximumSize_p < 1) {
+			throw new IllegalArgumentException(new StringBuffer("maximum size must be at least 1: ").append(maximumSize_p).toString());
+		}
+		synchronized (tracked) {
+			maximumSize = maximumSize_p;
+			expunge();
+			evict(tracked.size() - maximumSize);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the methods called by EasyBuilder.invokeMethod. The methods
+ * declared by the class are considered first and, if none of them accepts
+ * the arguments, those declared by each superclass in turn, up to but
+ * excluding Object. Overloads are chosen as Overloads describes.
+ * 
+ * The outcome is kept per class, method name and argument signature, so the
+ * reflective search happens once for each of them, see ConstructorResolver.
+ * A signature that names classes the class's loader can not see is searched
+ * on each call instead, see Overloads.isVisibleFrom.
+ */
+final class MethodResolver {
+
+	/**
+	 * Stands in for a method that could not be found.
+	 */
+	static final ResolvedMethod MISSING = new ResolvedMethod(null, false);
+
+	private final Class<?> clazz;
+
+	/**
+	 * The method resolved for each name and visible signature so far, keyed
+	 * by the name followed by the argument types.
+	 */
+	private final Map<List<Object>, ResolvedMethod> methods = new ConcurrentHashMap<List<Object>, ResolvedMethod>();
+
+	MethodResolver(Class<?> clazz_p) {
+		clazz = clazz_p;
+	}
+
+	/**
+	 * @param clazz
+	 *            The class whose methods are called
+	 * @return The shared resolver of clazz, held by the MetadataRegistry
+	 */
+	static MethodResolver of(Class<?> clazz) {
+		return MetadataRegistry.of(clazz).getMethodResolver();
+	}
+
+	/**
+	 * Resolves the method that accepts args.
+	 * 
+	 * @param methodName
+	 *            The name of the method
+	 * @param args
+	 *            The arguments to the method
+	 * @return The method, or MISSING if no method of that name accepts args
+	 * @throws NoSuchMethodException
+	 *             Several methods accept args equally well
+	 * @throws IllegalAccessException
+	 *             The method can not be opened
+	 */
+	ResolvedMethod resolve(String methodName, Object[] args) throws NoSuchMethodException, IllegalAccessException {
+		Class<?>[] argTypes = Overloads.signatureOf(args);
+		List<Object> key = new ArrayList<Object>(argTypes.length + 1);
+		key.add(methodName);
+		key.addAll(Arrays.asList(argTypes));
+		ResolvedMethod method = methods.get(key);
+		if (method == null) {
+			method = find(methodName, argTypes);
+			if (Overloads.isVisibleFrom(clazz, argTypes)) {
+				methods.put(key, method);
+			}
+		}
+		return method;
+	}
+
+	private ResolvedMethod find(String methodName, Class<?>[] argTypes) throws NoSuchMethodException, IllegalAccessException {
+		Class<?> sourceClass = clazz;
+		while (sourceClass != null && !Object.class.equals(sourceClass)) {
+			List<Method> candidates = new ArrayList<Method>();
+			Method[] declared = sourceClass.getDeclaredMethods();
+			for (int idx = 0; idx < declared.length; idx++) {
+				if (declared[idx].getName().equals(methodName) && !declared[idx].isBridge()) {
+					candidates.add(declared[idx]);
+				}
+			}
+			Method method = Overloads.select(candidates, argTypes);
+			if (method != null) {
+				return new ResolvedMethod(spreading(method), !Void.TYPE.equals(method.getReturnType()));
+			}
+			sourceClass = sourceClass.getSuperclass();
+		}
+		return MISSING;
+	}
+
+	/**
+	 * @return A MethodHandle of (Object, Object[])Object that calls method on
+	 *         its first argument, ignored by a static method, with the second
+	 *         spread over the parameters
+	 */
+	static MethodHandle spreading(Method method) throws IllegalAccessException {
+		// a method we cannot open fails to unreflect, and is reported
+		method.trySetAccessible();
+		MethodHandle handle = AssemblyCompiler.lookup.unreflect(method).asFixedArity();
+		int arity = method.getParameterCount();
+		if (Modifier.isStatic(method.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return handle.asType(MethodType.genericMethodType(arity + 1)).asSpreader(Object[].class, arity)
+				.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+	}
+
+	/**
+	 * A resolved method.
+	 */
+	static final class ResolvedMethod {
+
+		/**
+		 * A MethodHandle of (Object, Object[])Object, null if there is no
+		 * method.
+		 */
+		final MethodHandle handle;
+
+		/**
+		 * The method returns a value, it is not void.
+		 */
+		final boolean returnsValue;
+
+		ResolvedMethod(MethodHandle handle_p, boolean returnsValue_p) {
+			handle = handle_p;
+			returnsValue = returnsValue_p;
+		}
+	}
+}
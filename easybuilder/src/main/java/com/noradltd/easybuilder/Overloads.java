@@ -0,0 +1,258 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Executable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses among overloaded constructors and methods for a list of arguments,
+ * the way the compiler would if the arguments' runtime classes were their
+ * declared types. A null argument fits any reference parameter.
+ * 
+ * As in the JLS, candidates that need no unboxing are preferred; only when
+ * there are none is a wrapper allowed to unbox, and then widen, to a
+ * primitive parameter. Of the applicable candidates the most specific one is
+ * chosen.
+ */
+final class Overloads {
+
+	private Overloads() {
+	}
+
+	/**
+	 * @param args
+	 *            The arguments of a call, may be null for none
+	 * @return The runtime class of each argument, null for a null argument
+	 */
+	static Class<?>[] signatureOf(Object[] args) {
+		Class<?>[] types;
+		if (args == null) {
+			types = new Class<?>[0];
+		} else {
+			types = new Class<?>[args.length];
+			for (int idx = 0; idx < args.length; idx++) {
+				if (args[idx] != null) {
+					types[idx] = args[idx].getClass();
+				}
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Whether a signature can be kept with the class it was resolved for. The
+	 * resolvers of a class live as long as the class does, so a signature is
+	 * kept only if its classes are visible from the class's own loader;
+	 * keeping any other would hold on to the loader that defined it.
+	 * 
+	 * @param clazz
+	 *            The class the signature is resolved for
+	 * @param argTypes
+	 *            The argument types, as signatureOf reports them
+	 * @return true if every argument type is defined by the loader of clazz
+	 *         or one of its ancestors
+	 */
+	static boolean isVisibleFrom(Class<?> clazz, Class<?>[] argTypes) {
+		ClassLoader loader = clazz.getClassLoader();
+		for (int idx = 0; idx < argTypes.length; idx++) {
+			if (argTypes[idx] != null && !isAncestor(argTypes[idx].getClassLoader(), loader)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if ancestor is loader, one of its parents, or the
+	 *         bootstrap loader
+	 */
+	private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+		if (ancestor == null) {
+			return true;
+		}
+		for (ClassLoader parent = loader; parent != null; parent = parent.getParent()) {
+			if (parent == ancestor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Selects the candidate to call with arguments of the given types.
+	 * 
+	 * @param candidates
+	 *            The constructors or methods to choose from
+	 * @param argTypes
+	 *            The argument types, as signatureOf reports them
+	 * @return The most specific applicable candidate, or null if none is
+	 *         applicable
+	 * @throws NoSuchMethodException
+	 *             No applicable candidate is more specific than the others
+	 */
+	static <T extends Executable> T select(List<T> candidates, Class<?>[] argTypes) throws NoSuchMethodException {
+		if (candidates.isEmpty()) {
+			return null;
+		}
+		Class<?>[][] signatures = new Class<?>[candidates.size()][];
+		for (int idx = 0; idx < signatures.length; idx++) {
+			signatures[idx] = candidates.get(idx).getParameterTypes();
+		}
+		int selected = select(candidates.get(0).getName(), signatures, argTypes);
+		return (selected < 0) ? null : candidates.get(selected);
+	}
+
+	/**
+	 * Selects among candidates known only by their parameter types, see
+	 * EasyBuildSupport.
+	 * 
+	 * @param name
+	 *            The name of the candidates, for the message of an ambiguous
+	 *            call
+	 * @param signatures
+	 *            The parameter types of each candidate
+	 * @param argTypes
+	 *            The argument types, as signatureOf reports them
+	 * @return The index of the most specific applicable candidate, or -1 if
+	 *         none is applicable
+	 * @throws NoSuchMethodException
+	 *             No applicable candidate is more specific than the others
+	 */
+	static int select(String name, Class<?>[][] signatures, Class<?>[] argTypes) throws NoSuchMethodException {
+		List<Integer> applicable = applicable(signatures, argTypes, false);
+		if (applicable.isEmpty()) {
+			applicable = applicable(signatures, argTypes, true);
+		}
+		int rval = -1;
+		for (int idx = 0; idx < applicable.size() && rval < 0; idx++) {
+			Class<?>[] candidate = signatures[applicable.get(idx).intValue()];
+			boolean mostSpecific = true;
+			for (int other = 0; other < applicable.size() && mostSpecific; other++) {
+				mostSpecific = other == idx || isMoreSpecific(candidate, signatures[applicable.get(other).intValue()]);
+			}
+			if (mostSpecific) {
+				rval = applicable.get(idx).intValue();
+			}
+		}
+		if (rval < 0 && !applicable.isEmpty()) {
+			throw new NoSuchMethodException(new StringBuffer("Ambiguous call of ").append(name).append(" with ").append(describe(argTypes))
+					.toString());
+		}
+		return rval;
+	}
+
+	/**
+	 * @return The argument types written the way a parameter list is
+	 */
+	static String describe(Class<?>[] argTypes) {
+		StringBuffer sb = new StringBuffer("(");
+		for (int idx = 0; idx < argTypes.length; idx++) {
+			if (idx > 0) {
+				sb.append(", ");
+			}
+			sb.append((argTypes[idx] == null) ? "null" : argTypes[idx].getName());
+		}
+		return sb.append(")").toString();
+	}
+
+	private static List<Integer> applicable(Class<?>[][] signatures, Class<?>[] argTypes, boolean unboxing) {
+		List<Integer> rval = new ArrayList<Integer>();
+		for (int idx = 0; idx < signatures.length; idx++) {
+			if (isApplicable(signatures[idx], argTypes, unboxing)) {
+				rval.add(Integer.valueOf(idx));
+			}
+		}
+		return rval;
+	}
+
+	static boolean isApplicable(Class<?>[] paramTypes, Class<?>[] argTypes, boolean unboxing) {
+		if (paramTypes.length != argTypes.length) {
+			return false;
+		}
+		for (int idx = 0; idx < paramTypes.length; idx++) {
+			if (!accepts(paramTypes[idx], argTypes[idx], unboxing)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if a parameter of paramType accepts an argument of
+	 *         argType, null for a null argument
+	 */
+	static boolean accepts(Class<?> paramType, Class<?> argType, boolean unboxing) {
+		if (argType == null) {
+			return !paramType.isPrimitive();
+		}
+		if (!paramType.isPrimitive()) {
+			return paramType.isAssignableFrom(argType);
+		}
+		Class<?> unboxed = MethodType.methodType(argType).unwrap().returnType();
+		return unboxing && unboxed.isPrimitive() && isWidening(unboxed, paramType);
+	}
+
+	/**
+	 * Every parameter of one candidate could be passed to the other.
+	 */
+	private static boolean isMoreSpecific(Class<?>[] paramTypes, Class<?>[] otherTypes) {
+		for (int idx = 0; idx < paramTypes.length; idx++) {
+			Class<?> type = paramTypes[idx];
+			Class<?> other = otherTypes[idx];
+			boolean fits = (type.isPrimitive() && other.isPrimitive()) ? isWidening(type, other) : other.isAssignableFrom(type);
+			if (!fits) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if from is to, or widens to it (JLS 5.1.2)
+	 */
+	static boolean isWidening(Class<?> from, Class<?> to) {
+		if (from.equals(to)) {
+			return true;
+		}
+		if (Byte.TYPE.equals(from)) {
+			return Short.TYPE.equals(to) || isWidening(Integer.TYPE, to);
+		}
+		if (Short.TYPE.equals(from) || Character.TYPE.equals(from)) {
+			return isWidening(Integer.TYPE, to);
+		}
+		if (Integer.TYPE.equals(from)) {
+			return isWidening(Long.TYPE, to);
+		}
+		if (Long.TYPE.equals(from)) {
+			return isWidening(Float.TYPE, to);
+		}
+		if (Float.TYPE.equals(from)) {
+			return Double.TYPE.equals(to);
+		}
+		return false;
+	}
+}
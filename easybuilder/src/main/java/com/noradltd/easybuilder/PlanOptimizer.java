@@ -0,0 +1,146 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+import com.noradltd.easybuilder.EasyBuilder.BulkFieldInstruction;
+import com.noradltd.easybuilder.EasyBuilder.FieldInstruction;
+import com.noradltd.easybuilder.EasyBuilder.InstantiateInstruction;
+
+/**
+ * Rewrites the sorted instructions of a builder into a plan that builds the
+ * same object with less work. Three passes are made:
+ * <ul>
+ * <li>Only the first InstantiateInstruction is kept.</li>
+ * <li>A field write is dropped when a later write sets the same field and
+ * nothing in between could see the difference. Only writes certain not to
+ * fail are dropped or passed over; any other instruction, a method
+ * invocation above all, is a barrier.</li>
+ * <li>Adjacent field writes looked up in the same class are fused into a
+ * single BulkFieldInstruction.</li>
+ * </ul>
+ * The instructions themselves are not changed, only the plan that is built
+ * from them.
+ */
+final class PlanOptimizer {
+
+	private PlanOptimizer() {
+	}
+
+	/**
+	 * @param instructions
+	 *            The instructions in execution order, as preCompile sorts them
+	 * @param clazz
+	 *            The class being built
+	 * @return The optimized plan
+	 */
+	static AssemblyInstruction[] optimize(List<AssemblyInstruction> instructions, Class<?> clazz) {
+		return fuse(eliminateDeadStores(dropRedundantInstantiations(instructions), clazz), clazz);
+	}
+
+	/**
+	 * Keeps the first InstantiateInstruction, the only one that is ever
+	 * invoked, and drops any other.
+	 */
+	static List<AssemblyInstruction> dropRedundantInstantiations(List<AssemblyInstruction> instructions) {
+		List<AssemblyInstruction> rval = new ArrayList<AssemblyInstruction>(instructions.size());
+		boolean instantiated = false;
+		for (int idx = 0; idx < instructions.size(); idx++) {
+			AssemblyInstruction instruction = instructions.get(idx);
+			if (instruction instanceof InstantiateInstruction) {
+				if (instantiated) {
+					continue;
+				}
+				instantiated = true;
+			}
+			rval.add(instruction);
+		}
+		return rval;
+	}
+
+	/**
+	 * Walks the instructions backwards, remembering the fields that are
+	 * certain to be written again before anything could observe them.
+	 */
+	static List<AssemblyInstruction> eliminateDeadStores(List<AssemblyInstruction> instructions, Class<?> clazz) {
+		List<AssemblyInstruction> rval = new ArrayList<AssemblyInstruction>(instructions.size());
+		Set<Field> overwritten = new HashSet<Field>();
+		for (int idx = instructions.size() - 1; idx >= 0; idx--) {
+			AssemblyInstruction instruction = instructions.get(idx);
+			if (instruction instanceof FieldInstruction) {
+				Field field = ((FieldInstruction) instruction).getWrittenField(clazz);
+				if (field == null) {
+					overwritten.clear();
+				} else if (!overwritten.add(field)) {
+					continue;
+				}
+			} else if (!(instruction instanceof InstantiateInstruction)) {
+				overwritten.clear();
+			}
+			rval.add(instruction);
+		}
+		Collections.reverse(rval);
+		return rval;
+	}
+
+	/**
+	 * Replaces each run of two or more adjacent field writes looked up in the
+	 * same class with a BulkFieldInstruction.
+	 */
+	static AssemblyInstruction[] fuse(List<AssemblyInstruction> instructions, Class<?> clazz) {
+		List<AssemblyInstruction> rval = new ArrayList<AssemblyInstruction>(instructions.size());
+		List<FieldInstruction> run = new ArrayList<FieldInstruction>();
+		for (int idx = 0; idx < instructions.size(); idx++) {
+			AssemblyInstruction instruction = instructions.get(idx);
+			if (instruction instanceof FieldInstruction) {
+				FieldInstruction write = (FieldInstruction) instruction;
+				if (!run.isEmpty() && run.get(0).getLookupClass(clazz) != write.getLookupClass(clazz)) {
+					flush(run, rval);
+				}
+				run.add(write);
+			} else {
+				flush(run, rval);
+				rval.add(instruction);
+			}
+		}
+		flush(run, rval);
+		return rval.toArray(new AssemblyInstruction[rval.size()]);
+	}
+
+	private static void flush(List<FieldInstruction> run, List<AssemblyInstruction> plan) {
+		if (run.size() == 1) {
+			plan.add(run.get(0));
+		} else if (run.size() > 1) {
+			plan.add(new BulkFieldInstruction(run.toArray(new FieldInstruction[run.size()])));
+		}
+		run.clear();
+	}
+}
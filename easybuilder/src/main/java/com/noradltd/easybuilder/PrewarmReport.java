@@ -0,0 +1,93 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What EasyBuilder.prewarm did: how long each class took to prewarm, and
+ * why any could not be. Classes are keyed by name, in the order they were
+ * given or found, so that a class that could not even be loaded is still
+ * reported.
+ */
+public final class PrewarmReport {
+
+	private final Map<String, Long> timings;
+
+	private final Map<String, Throwable> failures;
+
+	private final long elapsedNanos;
+
+	PrewarmReport(Map<String, Long> timings_p, Map<String, Throwable> failures_p, long elapsedNanos_p) {
+		timings = Collections.unmodifiableMap(new LinkedHashMap<String, Long>(timings_p));
+		failures = Collections.unmodifiableMap(new LinkedHashMap<String, Throwable>(failures_p));
+		elapsedNanos = elapsedNanos_p;
+	}
+
+	/**
+	 * @return The nanoseconds each class took, by class name, whether or
+	 *         not it failed
+	 */
+	public Map<String, Long> getTimings() {
+		return timings;
+	}
+
+	/**
+	 * @return What each class that could not be prewarmed threw, by class
+	 *         name
+	 */
+	public Map<String, Throwable> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return The wall clock nanoseconds of the whole prewarm, less than the
+	 *         sum of the timings when classes were prewarmed in parallel
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer rval = new StringBuffer("PrewarmReport[classes::").append(timings.size()).append(", failures::").append(failures.size())
+				.append(", elapsed::").append(millis(elapsedNanos)).append(" ms]");
+		Iterator<Map.Entry<String, Long>> itr = timings.entrySet().iterator();
+		while (itr.hasNext()) {
+			Map.Entry<String, Long> entry = itr.next();
+			rval.append("\n  ").append(entry.getKey()).append(": ").append(millis(entry.getValue().longValue())).append(" ms");
+			if (failures.containsKey(entry.getKey())) {
+				rval.append(" failed: ").append(failures.get(entry.getKey()));
+			}
+		}
+		return rval.toString();
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.3f", Double.valueOf(nanos / 1000000.0));
+	}
+}
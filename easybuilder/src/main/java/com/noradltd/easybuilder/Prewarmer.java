@@ -0,0 +1,232 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Resolves the metadata of classes ahead of their first build, see
+ * EasyBuilder.prewarm. For each class every field writer is created, for the
+ * class and each superclass, and for a class that can be instantiated its
+ * constructors are resolved and its Objenesis instantiator chosen. Nothing
+ * is built, so no constructor or method of the class runs.
+ */
+final class Prewarmer {
+
+	private Prewarmer() {
+	}
+
+	/**
+	 * Prewarms each class on the executor and waits for all of them.
+	 * 
+	 * @param classes
+	 *            The classes, in the order to report them
+	 * @param executor
+	 *            Runs a task per class
+	 * @return The time each class took
+	 */
+	static PrewarmReport prewarm(Class<?>[] classes, Executor executor) {
+		List<String> classNames = new ArrayList<String>(classes.length);
+		Map<String, Class<?>> loaded = new LinkedHashMap<String, Class<?>>();
+		for (int idx = 0; idx < classes.length; idx++) {
+			classNames.add(classes[idx].getName());
+			loaded.put(classes[idx].getName(), classes[idx]);
+		}
+		return prewarm(classNames, loaded, null, executor);
+	}
+
+	/**
+	 * Loads, without initializing them, and prewarms each class on the
+	 * executor and waits for all of them.
+	 * 
+	 * @param classNames
+	 *            The names of the classes, in the order to report them
+	 * @param loader
+	 *            Loads the classes
+	 * @param executor
+	 *            Runs a task per class
+	 * @return The time each class took, including loading it
+	 */
+	static PrewarmReport prewarm(List<String> classNames, ClassLoader loader, Executor executor) {
+		return prewarm(classNames, Collections.<String, Class<?>> emptyMap(), loader, executor);
+	}
+
+	private static PrewarmReport prewarm(List<String> classNames, final Map<String, Class<?>> loaded, final ClassLoader loader,
+			Executor executor) {
+		long start = System.nanoTime();
+		final Map<String, Long> timings = new ConcurrentHashMap<String, Long>();
+		final Map<String, Throwable> failures = new ConcurrentHashMap<String, Throwable>();
+		List<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>(classNames.size());
+		Iterator<String> itr = classNames.iterator();
+		while (itr.hasNext()) {
+			final String className = itr.next();
+			tasks.add(CompletableFuture.runAsync(new Runnable() {
+				public void run() {
+					long classStart = System.nanoTime();
+					try {
+						Class<?> clazz = loaded.get(className);
+						prewarm((clazz == null) ? Class.forName(className, false, loader) : clazz);
+					} catch (Throwable t) {
+						failures.put(className, t);
+					}
+					timings.put(className, Long.valueOf(System.nanoTime() - classStart));
+				}
+			}, executor));
+		}
+		CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).join();
+		Map<String, Long> ordered = new LinkedHashMap<String, Long>();
+		itr = classNames.iterator();
+		while (itr.hasNext()) {
+			String className = itr.next();
+			ordered.put(className, timings.get(className));
+		}
+		return new PrewarmReport(ordered, failures, System.nanoTime() - start);
+	}
+
+	/**
+	 * Prewarms one class.
+	 */
+	static void prewarm(Class<?> clazz) {
+		for (Class<?> type = clazz; type != null && !Object.class.equals(type); type = type.getSuperclass()) {
+			FieldIndex.of(type).prewarm();
+		}
+		int modifiers = clazz.getModifiers();
+		if (!clazz.isInterface() && !clazz.isArray() && !clazz.isPrimitive() && !clazz.isEnum() && !Modifier.isAbstract(modifiers)) {
+			ConstructorResolver.of(clazz).prewarm();
+			InstantiatorRegistry.getInstantiatorOf(clazz);
+		}
+	}
+
+	/**
+	 * Finds the classes of a package and of the packages within it, in
+	 * directories and jar files on the class path of loader. Anonymous and
+	 * local classes are left out.
+	 * 
+	 * @param packageName
+	 *            The name of the package, e.g. com.example.model
+	 * @param loader
+	 *            The class loader to search
+	 * @return The names of the classes, sorted
+	 * @throws IOException
+	 *             The class path could not be read
+	 */
+	static List<String> scan(String packageName, ClassLoader loader) throws IOException {
+		String path = packageName.replace('.', '/');
+		List<String> rval = new ArrayList<String>();
+		Enumeration<URL> resources = loader.getResources(path);
+		while (resources.hasMoreElements()) {
+			URL resource = resources.nextElement();
+			if ("file".equals(resource.getProtocol())) {
+				try {
+					scanDirectory(new File(resource.toURI()), packageName, rval);
+				} catch (URISyntaxException use) {
+					throw new IOException(use);
+				}
+			} else {
+				URLConnection connection = resource.openConnection();
+				if (connection instanceof JarURLConnection) {
+					connection.setUseCaches(false);
+					JarFile jar = ((JarURLConnection) connection).getJarFile();
+					try {
+						scanJar(jar, path, rval);
+					} finally {
+						jar.close();
+					}
+				}
+			}
+		}
+		Collections.sort(rval);
+		return rval;
+	}
+
+	private static void scanDirectory(File directory, String packageName, List<String> classNames) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (int idx = 0; idx < files.length; idx++) {
+			String name = files[idx].getName();
+			if (files[idx].isDirectory()) {
+				scanDirectory(files[idx], new StringBuffer(packageName).append(".").append(name).toString(), classNames);
+			} else {
+				addClass(new StringBuffer(packageName).append(".").append(name).toString(), classNames);
+			}
+		}
+	}
+
+	private static void scanJar(JarFile jar, String path, List<String> classNames) {
+		Enumeration<JarEntry> entries = jar.entries();
+		String prefix = path + "/";
+		while (entries.hasMoreElements()) {
+			JarEntry entry = entries.nextElement();
+			if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+				addClass(entry.getName().replace('/', '.'), classNames);
+			}
+		}
+	}
+
+	private static void addClass(String fileName, List<String> classNames) {
+		if (!fileName.endsWith(".class")) {
+			return;
+		}
+		String className = fileName.substring(0, fileName.length() - ".class".length());
+		if (className.endsWith("package-info") || className.endsWith("module-info") || isAnonymousOrLocal(className)) {
+			return;
+		}
+		classNames.add(className);
+	}
+
+	/**
+	 * @return true if a part of the binary name after a $ starts with a
+	 *         digit, as the names of anonymous and local classes do
+	 */
+	private static boolean isAnonymousOrLocal(String className) {
+		int dollar = className.indexOf('$');
+		while (dollar >= 0 && dollar + 1 < className.length()) {
+			if (Character.isDigit(className.charAt(dollar + 1))) {
+				return true;
+			}
+			dollar = className.indexOf('$', dollar + 1);
+		}
+		return false;
+	}
+}
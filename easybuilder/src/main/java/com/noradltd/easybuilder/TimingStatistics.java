@@ -0,0 +1,99 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * How long some kind of build step took, as BuildMetrics recorded it. All
+ * durations are in nanoseconds; percentiles are accurate to within a factor
+ * of two, see LatencyTimer.
+ */
+public final class TimingStatistics {
+
+	private final long count;
+
+	private final long totalNanos;
+
+	private final long maxNanos;
+
+	private final long p50Nanos;
+
+	private final long p90Nanos;
+
+	private final long p99Nanos;
+
+	TimingStatistics(long count_p, long totalNanos_p, long maxNanos_p, long p50Nanos_p, long p90Nanos_p, long p99Nanos_p) {
+		count = count_p;
+		totalNanos = totalNanos_p;
+		maxNanos = maxNanos_p;
+		p50Nanos = p50Nanos_p;
+		p90Nanos = p90Nanos_p;
+		p99Nanos = p99Nanos_p;
+	}
+
+	/**
+	 * Reconstructs statistics read through JMX, which MXBean proxies use.
+	 */
+	public static TimingStatistics from(CompositeData data) {
+		return new TimingStatistics(((Long) data.get("count")).longValue(), ((Long) data.get("totalNanos")).longValue(),
+				((Long) data.get("maxNanos")).longValue(), ((Long) data.get("p50Nanos")).longValue(), ((Long) data.get("p90Nanos")).longValue(),
+				((Long) data.get("p99Nanos")).longValue());
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public long getMeanNanos() {
+		return (count == 0) ? 0 : totalNanos / count;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP90Nanos() {
+		return p90Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	@Override
+	public String toString() {
+		return new StringBuffer("TimingStatistics[count::").append(count).append(", mean::").append(getMeanNanos()).append(", p50::")
+				.append(p50Nanos).append(", p90::").append(p90Nanos).append(", p99::").append(p99Nanos).append(", max::").append(maxNanos)
+				.append(" ns]").toString();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares filling a batch with one builder per row against one buildInto
+ * over indexed fields, and against the same batch split across the common
+ * ForkJoinPool by buildParallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBuildBenchmark {
+
+	@Param({ "10000", "1000000" })
+	private int size;
+
+	private EasyBuilder batchBuilder;
+
+	private Object[] out;
+
+	@Setup
+	public void setUp() {
+		batchBuilder = new EasyBuilder(OneOfEach.class) {
+			{
+				setIndexedIntField("i", idx -> idx);
+				setIndexedLongField("l", idx -> idx * 31L);
+				setIndexedDoubleField("d", idx -> idx * 0.5);
+				setIndexedBooleanField("t", idx -> (idx & 1) == 0);
+			}
+		};
+		out = new Object[size];
+	}
+
+	@Benchmark
+	public Object[] builderPerRow() {
+		for (int idx = 0; idx < size; idx++) {
+			out[idx] = new EasyBuilder(OneOfEach.class).setField("i", idx).setField("l", idx * 31L).setField("d", idx * 0.5)
+					.setField("t", (idx & 1) == 0).build();
+		}
+		return out;
+	}
+
+	@Benchmark
+	public Object[] buildInto() {
+		return batchBuilder.buildInto(out);
+	}
+
+	@Benchmark
+	public Object[] buildParallel() {
+		return batchBuilder.buildParallel(size);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class BuildContextTest {
+
+	@Test
+	public void testResultsAreKeptWithinABuild() {
+		BuildContext context = new BuildContext(Object.class, null);
+		context.putResult("next", "first");
+
+		assertThat(context.hasResult("next"), is(true));
+		assertThat(context.getResult("next"), is((Object) "first"));
+	}
+
+	@Test
+	public void testResetStartsTheNextBuildAfresh() {
+		BuildContext context = new BuildContext(Object.class, null);
+		context.instance = new Object();
+		context.putResult("next", "first");
+
+		context.reset(7);
+
+		assertThat(context.instance, is(nullValue()));
+		assertThat(context.index, is(7));
+		assertThat(context.hasResult("next"), is(false));
+		assertThat(context.getResult("next"), is(nullValue()));
+	}
+
+	@Test
+	public void testEachBuildOfABatchSetsItsOwnResult() {
+		Object[] built = new EasyBuilder(Counter.class).invokeMethod("next", new Object[0]).setFieldFromResult("value", "next").buildMany(3);
+
+		for (int idx = 0; idx < built.length; idx++) {
+			assertThat(((Counter) built[idx]).value, is(Integer.valueOf(1)));
+		}
+	}
+}
+
+class Counter {
+	private int count;
+
+	Integer value;
+
+	Integer next() {
+		return Integer.valueOf(++count);
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BuildMetricsTest {
+
+	private int compileThreshold;
+
+	@Before
+	public void setUp() {
+		compileThreshold = EasyBuilder.getCompileThreshold();
+		BuildMetrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		BuildMetrics.setEnabled(false);
+		BuildMetrics.reset();
+		EasyBuilder.setCompileThreshold(compileThreshold);
+	}
+
+	/**
+	 * Three adjacent field writes, which PlanOptimizer specializes and fuses
+	 * unless optimization is off, between an instantiation and a method. A
+	 * template creates a new instance for each build.
+	 */
+	private static EasyBuilder newMeasuredTemplate() {
+		return newMeasuredBuilder().asTemplate();
+	}
+
+	private static EasyBuilder newMeasuredBuilder() {
+		return new EasyBuilder(Measured.class).bypassConstructor().setField("name", "measured").setField("count", 3).setField("total", 4L)
+				.invokeMethod("touch", new Object[0]);
+	}
+
+	private static void buildMeasured(int count) {
+		EasyBuilder builder = newMeasuredTemplate();
+		for (int idx = 0; idx < count; idx++) {
+			builder.build();
+		}
+	}
+
+	private static void assertTimedAsRequested(long builds) {
+		assertTimedAsRequested(builds, builds);
+	}
+
+	private static void assertTimedAsRequested(long builds, long instantiations) {
+		Map<String, TimingStatistics> timings = BuildMetrics.getInstructionTimings();
+		assertThat(timings.keySet(), is((Object) new TreeSet<String>(Arrays.asList("BypassingInstantiateInstruction", "SetFieldInstruction",
+				"MethodInvocationInstruction"))));
+		assertThat(timings.get("BypassingInstantiateInstruction").getCount(), is(instantiations));
+		assertThat(timings.get("SetFieldInstruction").getCount(), is(3 * builds));
+		assertThat(timings.get("MethodInvocationInstruction").getCount(), is(builds));
+	}
+
+	@Test
+	public void testNothingIsRecordedWhileDisabled() {
+		buildMeasured(10);
+
+		assertThat(BuildMetrics.isEnabled(), is(false));
+		assertThat(BuildMetrics.getBuildTimings().getCount(), is(0L));
+		assertThat(BuildMetrics.getClassTimings().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testInterpretedInstructionsAreTimedByTheKindRequested() {
+		EasyBuilder.setCompileThreshold(0);
+		BuildMetrics.setEnabled(true);
+		buildMeasured(10);
+
+		assertTimedAsRequested(10);
+	}
+
+	@Test
+	public void testInstructionsAreTimedByKindAcrossPromotionAtTheDefaultThreshold() {
+		EasyBuilder.setCompileThreshold(1000);
+		BuildMetrics.setEnabled(true);
+		EasyBuilder builder = newMeasuredTemplate();
+		for (int idx = 0; idx < 1500; idx++) {
+			builder.build();
+		}
+
+		assertThat(builder.isCompiled(), is(true));
+		assertTimedAsRequested(1500);
+		assertThat(BuildMetrics.getClassTimings().get(Measured.class.getName()).getCount(), is(1500L));
+	}
+
+	@Test
+	public void testCompiledBuildsStillSetEveryField() {
+		EasyBuilder.setCompileThreshold(1);
+		BuildMetrics.setEnabled(true);
+		EasyBuilder builder = newMeasuredTemplate();
+		Measured measured = null;
+		for (int idx = 0; idx < 3; idx++) {
+			measured = (Measured) builder.build();
+		}
+
+		assertThat(builder.isCompiled(), is(true));
+		assertThat(measured.name, is("measured"));
+		assertThat(measured.count, is(3));
+		assertThat(measured.total, is(4L));
+		assertThat(measured.touches, is(1));
+		assertTimedAsRequested(3);
+	}
+
+	@Test
+	public void testAHeldInstanceIsNotTimedAsAnInstantiation() {
+		EasyBuilder.setCompileThreshold(3);
+		BuildMetrics.setEnabled(true);
+		EasyBuilder builder = newMeasuredBuilder();
+		for (int idx = 0; idx < 5; idx++) {
+			builder.build();
+		}
+
+		assertThat(builder.isCompiled(), is(true));
+		assertTimedAsRequested(5, 1);
+	}
+
+	@Test
+	public void testEachBuildIsTimedByClass() {
+		EasyBuilder.setCompileThreshold(0);
+		BuildMetrics.setEnabled(true);
+		buildMeasured(7);
+		new EasyBuilder(Other.class).build();
+
+		Map<String, TimingStatistics> timings = BuildMetrics.getClassTimings();
+		assertThat(timings.get(Measured.class.getName()).getCount(), is(7L));
+		assertThat(timings.get(Other.class.getName()).getCount(), is(1L));
+		assertThat(BuildMetrics.getBuildTimings().getCount(), is(8L));
+	}
+
+	@Test
+	public void testFusedWritesShareTheirTime() {
+		LatencyTimer timer = new LatencyTimer();
+		timer.record(900, 3);
+
+		TimingStatistics statistics = timer.snapshot();
+		assertThat(statistics.getCount(), is(3L));
+		assertThat(statistics.getTotalNanos(), is(900L));
+		assertThat(statistics.getMaxNanos(), is(300L));
+		assertThat(statistics.getP99Nanos(), is(300L));
+	}
+
+	@Test
+	public void testStatisticsAreOrdered() {
+		BuildMetrics.setEnabled(true);
+		buildMeasured(100);
+
+		TimingStatistics statistics = BuildMetrics.getBuildTimings();
+		assertThat(statistics.getTotalNanos(), is(greaterThan(0L)));
+		assertThat(statistics.getP50Nanos(), is(lessThanOrEqualTo(statistics.getP90Nanos())));
+		assertThat(statistics.getP90Nanos(), is(lessThanOrEqualTo(statistics.getP99Nanos())));
+		assertThat(statistics.getP99Nanos(), is(lessThanOrEqualTo(statistics.getMaxNanos())));
+		assertThat(statistics.getMeanNanos(), is(lessThanOrEqualTo(statistics.getMaxNanos())));
+	}
+
+	@Test
+	public void testPercentilesAreTheUpperBoundOfTheirBucket() {
+		LatencyTimer timer = new LatencyTimer();
+		for (int idx = 0; idx < 90; idx++) {
+			timer.record(100);
+		}
+		for (int idx = 0; idx < 10; idx++) {
+			timer.record(5000);
+		}
+
+		TimingStatistics statistics = timer.snapshot();
+		assertThat(statistics.getCount(), is(100L));
+		assertThat(statistics.getMeanNanos(), is(590L));
+		assertThat(statistics.getP50Nanos(), is(127L));
+		assertThat(statistics.getP90Nanos(), is(127L));
+		assertThat(statistics.getP99Nanos(), is(5000L));
+		assertThat(statistics.getMaxNanos(), is(5000L));
+	}
+
+	@Test
+	public void testResetClearsTimings() {
+		BuildMetrics.setEnabled(true);
+		buildMeasured(3);
+		BuildMetrics.reset();
+
+		assertThat(BuildMetrics.getBuildTimings().getCount(), is(0L));
+		assertThat(BuildMetrics.getInstructionTimings().isEmpty(), is(true));
+		assertThat(BuildMetrics.getClassTimings().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testMetricsArePublishedOverJmx() throws Exception {
+		BuildMetrics.setEnabled(true);
+		buildMeasured(4);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(BuildMetrics.OBJECT_NAME);
+		assertThat(server.isRegistered(name), is(true));
+		assertThat(((CompositeData) server.getAttribute(name, "BuildTimings")).get("count"), is((Object) Long.valueOf(4)));
+		assertThat(((Double) server.getAttribute(name, "MetadataHitRate")).doubleValue() > 0.0, is(true));
+
+		BuildMetricsMXBean proxy = JMX.newMXBeanProxy(server, name, BuildMetricsMXBean.class);
+		assertThat(proxy.getClassTimings().get(Measured.class.getName()).getCount(), is(4L));
+		assertThat(proxy.getInstructionTimings().get("MethodInvocationInstruction").getCount(), is(4L));
+		InstantiatorRegistry.getInstantiatorOf(Measured.class);
+		InstantiatorRegistry.getInstantiatorOf(Measured.class);
+		assertThat(proxy.getInstantiatorHitRate() > 0.0, is(true));
+
+		proxy.setEnabled(false);
+		assertThat(BuildMetrics.isEnabled(), is(false));
+	}
+}
+
+class Measured {
+	String name;
+
+	int count;
+
+	long total;
+
+	int touches;
+
+	void touch() {
+		touches++;
+	}
+}
+
+class Other {
+}
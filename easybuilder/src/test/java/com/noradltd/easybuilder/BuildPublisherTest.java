@@ -0,0 +1,244 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BuildPublisherTest {
+
+	/**
+	 * Runs every task at once on the calling thread, so demand can be checked
+	 * step by step.
+	 */
+	private static class CountingExecutor implements Executor {
+		int tasks = 0;
+
+		public void execute(Runnable command) {
+			tasks++;
+			command.run();
+		}
+	}
+
+	private static class RecordingSubscriber implements Flow.Subscriber<Object> {
+		final List<Object> received = new ArrayList<Object>();
+		final CountDownLatch done = new CountDownLatch(1);
+		Flow.Subscription subscription;
+		Throwable error;
+		boolean completed = false;
+
+		public void onSubscribe(Flow.Subscription subscription_p) {
+			subscription = subscription_p;
+		}
+
+		public void onNext(Object item) {
+			received.add(item);
+		}
+
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done.countDown();
+		}
+
+		public void onComplete() {
+			completed = true;
+			done.countDown();
+		}
+	}
+
+	@Test
+	public void testNothingIsBuiltWithoutDemand() {
+		InstanceCounter.reset();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		new EasyBuilder(InstanceCounter.class).publisher(100, new CountingExecutor(), 10).subscribe(subscriber);
+
+		assertThat(subscriber.received.size(), is(0));
+		assertThat(InstanceCounter.count, is(0));
+	}
+
+	@Test
+	public void testOnlyWhatIsRequestedIsDelivered() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).publisher(100, new CountingExecutor(), 10).subscribe(subscriber);
+
+		subscriber.subscription.request(3);
+		assertThat(subscriber.received.size(), is(3));
+		subscriber.subscription.request(2);
+		assertThat(subscriber.received.size(), is(5));
+
+		for (int idx = 0; idx < 5; idx++) {
+			assertThat(((OneOfEach) subscriber.received.get(idx)).i, is(idx));
+		}
+		assertThat(subscriber.completed, is(false));
+	}
+
+	@Test
+	public void testCompletesAfterTheLastInstance() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).publisher(4, new CountingExecutor(), 10).subscribe(subscriber);
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertThat(subscriber.received.size(), is(4));
+		assertThat(subscriber.completed, is(true));
+	}
+
+	@Test
+	public void testEmptyPublisherCompletesWithoutDemand() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		new EasyBuilder(OneOfEach.class).publisher(0, new CountingExecutor(), 10).subscribe(subscriber);
+
+		assertThat(subscriber.completed, is(true));
+	}
+
+	@Test
+	public void testDemandIsMetInBatches() {
+		CountingExecutor executor = new CountingExecutor();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).publisher(100, executor, 4).subscribe(subscriber);
+		int tasks = executor.tasks;
+
+		subscriber.subscription.request(10);
+
+		assertThat(subscriber.received.size(), is(10));
+		assertThat(executor.tasks - tasks, is(3));
+	}
+
+	@Test
+	public void testCancelStopsDelivery() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).publisher(100, new CountingExecutor(), 10).subscribe(subscriber);
+
+		subscriber.subscription.request(2);
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(5);
+
+		assertThat(subscriber.received.size(), is(2));
+		assertThat(subscriber.completed, is(false));
+		assertThat(subscriber.error, is(nullValue()));
+	}
+
+	@Test
+	public void testNonPositiveRequestIsAnError() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).publisher(100, new CountingExecutor(), 10).subscribe(subscriber);
+
+		subscriber.subscription.request(0);
+
+		assertThat(subscriber.error instanceof IllegalArgumentException, is(true));
+	}
+
+	@Test
+	public void testBuildFailureIsAnError() {
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).setIndexedField("i", idx -> "not an int").publisher(100, new CountingExecutor(), 10).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+
+		assertThat(subscriber.error instanceof RuntimeException, is(true));
+		assertThat(subscriber.received.size(), is(0));
+	}
+
+	@Test
+	public void testShutDownExecutorIsAnError() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+
+		new EasyBuilder(OneOfEach.class).publisher(100, executor, 10).subscribe(subscriber);
+		subscriber.subscription.request(5);
+
+		assertThat(subscriber.error instanceof RejectedExecutionException, is(true));
+		assertThat(subscriber.received.size(), is(0));
+		assertThat(subscriber.done.getCount(), is(0L));
+	}
+
+	@Test
+	public void testRejectedBatchIsAnError() {
+		final CountingExecutor accepting = new CountingExecutor();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		new EasyBuilder(OneOfEach.class).publisher(100, new Executor() {
+			public void execute(Runnable command) {
+				if (accepting.tasks == 2) {
+					throw new RejectedExecutionException("full");
+				}
+				accepting.execute(command);
+			}
+		}, 4).subscribe(subscriber);
+
+		subscriber.subscription.request(10);
+
+		assertThat(subscriber.received.size(), is(4));
+		assertThat(subscriber.error instanceof RejectedExecutionException, is(true));
+	}
+
+	@Test
+	public void testOneAtATimeSubscriberOnAPool() throws InterruptedException {
+		final List<Object> received = new ArrayList<Object>();
+		final CountDownLatch done = new CountDownLatch(1);
+		new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).publisher(1000, ForkJoinPool.commonPool(), 16)
+				.subscribe(new Flow.Subscriber<Object>() {
+					Flow.Subscription subscription;
+
+					public void onSubscribe(Flow.Subscription subscription_p) {
+						subscription = subscription_p;
+						subscription.request(1);
+					}
+
+					public void onNext(Object item) {
+						received.add(item);
+						subscription.request(1);
+					}
+
+					public void onError(Throwable throwable) {
+					}
+
+					public void onComplete() {
+						done.countDown();
+					}
+				});
+
+		assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(received.size(), is(1000));
+		for (int idx = 0; idx < received.size(); idx++) {
+			assertThat(((OneOfEach) received.get(idx)).i, is(idx));
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class BuildSpliteratorTest {
+
+	@Test
+	public void testNothingIsBuiltUntilTheStreamIsConsumed() {
+		InstanceCounter.reset();
+		EasyBuilder builder = new EasyBuilder(InstanceCounter.class);
+
+		Object first = builder.stream(1000).findFirst().get();
+
+		assertThat(InstanceCounter.count, is(1));
+		assertThat(((InstanceCounter) first).id, is(1));
+	}
+
+	@Test
+	public void testInstancesAreBuiltInIndexOrder() {
+		List<Object> built = new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).stream(100).collect(Collectors.toList());
+
+		assertThat(built.size(), is(100));
+		for (int idx = 0; idx < built.size(); idx++) {
+			assertThat(((OneOfEach) built.get(idx)).i, is(idx));
+		}
+	}
+
+	@Test
+	public void testCustomizerSeesEachInstanceAndItsIndex() {
+		List<Object> built = new EasyBuilder(OneOfEach.class).setField("i", 3).stream(10, (instance, idx) -> ((OneOfEach) instance).l = idx * 2L)
+				.collect(Collectors.toList());
+
+		for (int idx = 0; idx < built.size(); idx++) {
+			assertThat(((OneOfEach) built.get(idx)).i, is(3));
+			assertThat(((OneOfEach) built.get(idx)).l, is(idx * 2L));
+		}
+	}
+
+	@Test
+	public void testParallelStreamKeepsIndexOrder() {
+		List<Object> built = new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).stream(100000).parallel()
+				.collect(Collectors.toList());
+
+		assertThat(built.size(), is(100000));
+		for (int idx = 0; idx < built.size(); idx++) {
+			assertThat(((OneOfEach) built.get(idx)).i, is(idx));
+		}
+	}
+
+	@Test
+	public void testSplitHalvesTheRemainingIndexes() {
+		Spliterator<Object> spliterator = new EasyBuilder(OneOfEach.class).stream(10).spliterator();
+
+		Spliterator<Object> prefix = spliterator.trySplit();
+
+		assertThat(prefix.estimateSize(), is(5L));
+		assertThat(spliterator.estimateSize(), is(5L));
+		assertThat(prefix.hasCharacteristics(Spliterator.SUBSIZED), is(true));
+	}
+
+	@Test
+	public void testSingleIndexDoesNotSplit() {
+		Spliterator<Object> spliterator = new EasyBuilder(OneOfEach.class).stream(1).spliterator();
+
+		assertThat(spliterator.trySplit() == null, is(true));
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building an object with a hand written builder, a compiled
+ * EasyBuilder, and an interpreted EasyBuilder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledBuilderBenchmark {
+
+	private CompiledBuilder compiled;
+
+	@Setup
+	public void setUp() {
+		compiled = newBuilder().compile();
+	}
+
+	private static EasyBuilder newBuilder() {
+		return new EasyBuilder(OneOfEach.class) {
+			{
+				setField("c", 'a');
+				setField("b", (byte) 1);
+				setField("s", (short) 2);
+				setField("i", 3);
+				setField("l", 4L);
+				setField("f", 5.0f);
+				setField("d", 6.0);
+				setField("t", true);
+			}
+		};
+	}
+
+	@Benchmark
+	public Object handWritten() {
+		OneOfEach instance = new OneOfEach();
+		instance.c = 'a';
+		instance.b = (byte) 1;
+		instance.s = (short) 2;
+		instance.i = 3;
+		instance.l = 4L;
+		instance.f = 5.0f;
+		instance.d = 6.0;
+		instance.t = true;
+		return instance;
+	}
+
+	@Benchmark
+	public Object compiled() {
+		return compiled.build();
+	}
+
+	@Benchmark
+	public Object interpreted() {
+		return newBuilder().build();
+	}
+}
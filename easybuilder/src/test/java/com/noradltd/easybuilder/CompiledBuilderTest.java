@@ -0,0 +1,228 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static com.noradltd.easybuilder.FloatCloseToMatcher.closeTo;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+public class CompiledBuilderTest {
+
+	@Test
+	public void testEachBuildCreatesANewInstance() {
+		CompiledBuilder compiled = new EasyBuilder(ConstructorCalledClass.class).compile();
+
+		Object first = compiled.build();
+		Object second = compiled.build();
+
+		assertThat(first, is(notNullValue()));
+		assertThat(second, is(not(sameInstance(first))));
+		assertThat(((ConstructorCalledClass) first).constructorCalled, is(true));
+	}
+
+	@Test
+	public void testConstructorIsBypassedWhenRequested() {
+		CompiledBuilder compiled = new EasyBuilder(ConstructorCalledClass.class).bypassConstructor().compile();
+
+		ConstructorCalledClass instance = (ConstructorCalledClass) compiled.build();
+
+		assertThat(instance.constructorCalled, is(false));
+	}
+
+	@Test
+	public void testConstructorExceptionIsWrapped() {
+		CompiledBuilder compiled = new EasyBuilder(SomeNonJavaBean.class).compile();
+
+		try {
+			compiled.build();
+			fail("Should have received an exception from the constructor.");
+		} catch (RuntimeException re) {
+			assertThat(re.getMessage().startsWith("Initalization Exception"), is(true));
+		}
+	}
+
+	@Test
+	public void testEveryPrimitiveIsSet() {
+		final Date date = new Date();
+		CompiledBuilder compiled = new EasyBuilder(OneOfEachPlus.class) {
+			{
+				setField("c", 'a');
+				setField("b", (byte) 1);
+				setField("s", (short) 2);
+				setField("i", 3);
+				setField("l", 4L);
+				setField("f", 12.01f);
+				setField("d", 42.3);
+				setField("t", true);
+				setField("obj", date);
+			}
+		}.compile();
+
+		OneOfEachPlus instance = (OneOfEachPlus) compiled.build();
+
+		assertThat(instance.c, is('a'));
+		assertThat(instance.b, is((byte) 1));
+		assertThat(instance.s, is((short) 2));
+		assertThat(instance.i, is(3));
+		assertThat(instance.l, is(4L));
+		assertThat(instance.f, is(closeTo(12.01f, 0.001F)));
+		assertThat(instance.d, is(closeTo(42.3, 0.001)));
+		assertThat(instance.t, is(true));
+		assertThat(instance.obj, is(sameInstance((Object) date)));
+	}
+
+	@Test
+	public void testValuesAreWidenedAndUnwrapped() {
+		CompiledBuilder compiled = new EasyBuilder(OneOfEach.class) {
+			{
+				setField("l", 3);
+				setField("d", 'a');
+				setField("i", Integer.valueOf(7));
+			}
+		}.compile();
+
+		OneOfEach instance = (OneOfEach) compiled.build();
+
+		assertThat(instance.l, is(3L));
+		assertThat(instance.d, is((double) 'a'));
+		assertThat(instance.i, is(7));
+	}
+
+	@Test
+	public void testMaskedParentFieldIsSet() throws Exception {
+		final Object obj = new Object();
+		CompiledBuilder compiled = new EasyBuilder(ExtendsSuperType.class) {
+			{
+				bypassConstructor();
+				setField("x", obj, SuperType.class);
+			}
+		}.compile();
+
+		ExtendsSuperType instance = (ExtendsSuperType) compiled.build();
+
+		java.lang.reflect.Field field = SuperType.class.getDeclaredField("x");
+		field.setAccessible(true);
+		assertThat(field.get(instance), is(sameInstance(obj)));
+	}
+
+	@Test
+	public void testMissingFieldFailsWhenBuilt() {
+		CompiledBuilder compiled = new EasyBuilder(SomeNonJavaBean.class) {
+			{
+				bypassConstructor();
+				setField("nonExistentField", "anyvaluewilldo");
+			}
+		}.compile();
+
+		try {
+			compiled.build();
+			fail("Should have received an exception");
+		} catch (RuntimeException re) {
+			// OK
+		}
+	}
+
+	@Test
+	public void testMethodsAreInvoked() {
+		CompiledBuilder compiled = new EasyBuilder(ExtensionOfPMethods.class) {
+			{
+				invokeMethod("privateMethod", null);
+				invokeMethod("returnMethod", null);
+				invokeMethod("staticMethod", null);
+			}
+		}.compile();
+		PMethods.staticCalled = false;
+
+		ExtensionOfPMethods instance = (ExtensionOfPMethods) compiled.build();
+
+		assertThat(instance.privateCalled, is(true));
+		assertThat(instance.returnCalled, is(true));
+		assertThat(PMethods.staticCalled, is(true));
+	}
+
+	@Test
+	public void testMethodExceptionIsWrapped() {
+		CompiledBuilder compiled = new EasyBuilder(ExeceptionalExecution.class) {
+			{
+				invokeMethod("method", null);
+			}
+		}.compile();
+
+		try {
+			compiled.build();
+			fail("should have gotten a runtime exception");
+		} catch (RuntimeException re) {
+			assertThat(re.getMessage(), isEmptyString());
+			assertThat(re.getCause(), is(notNullValue()));
+		}
+	}
+
+	@Test
+	public void testInvokingNonExistentMethodsIsHarmless() {
+		CompiledBuilder compiled = new EasyBuilder(Parent.class) {
+			{
+				bypassConstructor();
+				invokeMethod("nonExistentMethod", null);
+			}
+		}.compile();
+
+		assertThat(compiled.build(), is(notNullValue()));
+	}
+
+	@Test
+	public void testAlternateConstructorIsUsed() {
+		final Object[] args = new Object[] { new Object() };
+		CompiledBuilder compiled = new EasyBuilder(AltConstructor.class) {
+			{
+				useAlternateConstructor(args);
+			}
+		}.compile();
+
+		AltConstructor instance = (AltConstructor) compiled.build();
+
+		assertThat(instance.altWasCalled, is(true));
+		assertThat(instance.obj, is(sameInstance(args[0])));
+	}
+
+	@Test
+	public void testLaterChangesToTheBuilderAreNotSeen() {
+		EasyBuilder builder = new EasyBuilder(Dates.class);
+		CompiledBuilder compiled = builder.compile();
+
+		builder.setField("date", new Date());
+
+		assertThat(((Dates) compiled.build()).date, is(nullValue()));
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.invoke.MethodHandle;
+
+import org.junit.Test;
+
+public class ConstructorResolverTest {
+
+	private static Overloaded construct(Object... args) throws Throwable {
+		MethodHandle constructor = ConstructorResolver.of(Overloaded.class).resolve(args);
+		return (Overloaded) (Object) constructor.invokeExact(args);
+	}
+
+	@Test
+	public void testWrapperUnboxesToAPrimitiveParameter() throws Throwable {
+		assertThat(construct(Integer.valueOf(3), Integer.valueOf(4)).chosen, is("int, int"));
+	}
+
+	@Test
+	public void testWrapperWidensToAPrimitiveParameter() throws Throwable {
+		Overloaded instance = construct(Character.valueOf('A'));
+
+		assertThat(instance.chosen, is("long"));
+		assertThat(instance.value, is((Object) Long.valueOf('A')));
+	}
+
+	@Test
+	public void testReferenceParameterIsPreferredOverUnboxing() throws Throwable {
+		assertThat(construct(Integer.valueOf(3)).chosen, is("Number"));
+	}
+
+	@Test
+	public void testMostSpecificReferenceParameterIsChosen() throws Throwable {
+		assertThat(construct("text").chosen, is("String"));
+		assertThat(construct(new StringBuilder("text")).chosen, is("CharSequence"));
+	}
+
+	@Test
+	public void testNullMatchesAReferenceParameter() throws Throwable {
+		assertThat(construct(null, Integer.valueOf(1), Integer.valueOf(2)).chosen, is("Object, int, int"));
+	}
+
+	@Test
+	public void testNullOnlyMatchingSeveralParametersIsAmbiguous() {
+		try {
+			ConstructorResolver.of(Overloaded.class).resolve(new Object[] { null });
+			fail("String and Number accept null equally well");
+		} catch (NoSuchMethodException nsme) {
+			assertThat(nsme.getMessage().startsWith("Ambiguous"), is(true));
+		}
+	}
+
+	@Test(expected = NoSuchMethodException.class)
+	public void testNoMatchingConstructor() throws NoSuchMethodException {
+		ConstructorResolver.of(Overloaded.class).resolve(new Object[] { Boolean.TRUE, Boolean.TRUE });
+	}
+
+	@Test
+	public void testSuperclassesAreSearchedBeyondTheFirstParent() throws Throwable {
+		Object[] args = new Object[] { "deep" };
+		MethodHandle constructor = ConstructorResolver.of(ThirdGeneration.class).resolve(args);
+
+		FirstGeneration instance = (FirstGeneration) (Object) constructor.invokeExact(args);
+
+		assertThat(instance.getClass() == FirstGeneration.class, is(true));
+		assertThat(instance.name, is("deep"));
+	}
+
+	@Test
+	public void testResolutionIsKeptPerSignature() throws NoSuchMethodException {
+		ConstructorResolver resolver = ConstructorResolver.of(Overloaded.class);
+
+		MethodHandle first = resolver.resolve(new Object[] { "one" });
+		MethodHandle second = resolver.resolve(new Object[] { "two" });
+
+		assertThat(second, is(sameInstance(first)));
+	}
+
+	@Test
+	public void testDefaultConstructorSupplierCreatesInstances() throws InstantiationException {
+		ConstructorResolver.DefaultConstructor constructor = ConstructorResolver.of(ConstructorCalledClass.class).getDefaultConstructor();
+
+		Object first = constructor.supplier.get();
+		Object second = constructor.supplier.get();
+
+		assertThat(((ConstructorCalledClass) first).constructorCalled, is(true));
+		assertThat(first == second, is(false));
+	}
+
+	@Test
+	public void testPrivateDefaultConstructorIsCalled() throws Throwable {
+		ConstructorResolver.DefaultConstructor constructor = ConstructorResolver.of(PrivateDefault.class).getDefaultConstructor();
+
+		assertThat(constructor.supplier.getClass().isHidden(), is(true));
+		assertThat(((PrivateDefault) constructor.supplier.get()).called, is(true));
+		assertThat(((PrivateDefault) (Object) constructor.handle.invokeExact()).called, is(true));
+	}
+
+	@Test
+	public void testDefaultConstructorIsResolvedOnce() throws InstantiationException {
+		ConstructorResolver resolver = ConstructorResolver.of(ConstructorCalledClass.class);
+
+		assertThat(resolver.getDefaultConstructor(), is(sameInstance(resolver.getDefaultConstructor())));
+	}
+
+	@Test
+	public void testCheckedExceptionOfTheDefaultConstructorIsPassedOn() throws InstantiationException {
+		ConstructorResolver.DefaultConstructor constructor = ConstructorResolver.of(CheckedDefault.class).getDefaultConstructor();
+
+		try {
+			constructor.supplier.get();
+			fail("the constructor throws");
+		} catch (Exception e) {
+			assertThat(e instanceof java.io.IOException, is(true));
+		}
+	}
+
+	@Test(expected = InstantiationException.class)
+	public void testAbstractClassHasNoDefaultConstructor() throws InstantiationException {
+		ConstructorResolver.of(AbstractDefault.class).getDefaultConstructor();
+	}
+
+	@Test
+	public void testUseAlternateConstructorWithPrimitivesAndNulls() {
+		Overloaded instance = (Overloaded) new EasyBuilder(Overloaded.class).useAlternateConstructor(new Object[] { null, 1, 2 }).build();
+
+		assertThat(instance.chosen, is("Object, int, int"));
+	}
+
+	@Test
+	public void testUseAlternateConstructorWithoutAMatchFails() {
+		try {
+			new EasyBuilder(Overloaded.class).useAlternateConstructor(new Object[] { Boolean.TRUE, Boolean.TRUE }).build();
+			fail("no constructor accepts two booleans");
+		} catch (RuntimeException re) {
+			assertThat(re.getMessage().startsWith("Initalization Exception"), is(true));
+			assertThat(re.getCause() instanceof NoSuchMethodException, is(true));
+		}
+	}
+}
+
+class Overloaded {
+	String chosen;
+	Object value;
+
+	Overloaded(int a, int b) {
+		chosen = "int, int";
+	}
+
+	Overloaded(long a) {
+		chosen = "long";
+		value = Long.valueOf(a);
+	}
+
+	Overloaded(Number n) {
+		chosen = "Number";
+	}
+
+	Overloaded(String s) {
+		chosen = "String";
+	}
+
+	Overloaded(CharSequence s) {
+		chosen = "CharSequence";
+	}
+
+	Overloaded(Object o, int a, int b) {
+		chosen = "Object, int, int";
+	}
+}
+
+class FirstGeneration {
+	String name;
+
+	FirstGeneration() {
+	}
+
+	FirstGeneration(String name_p) {
+		name = name_p;
+	}
+}
+
+class SecondGeneration extends FirstGeneration {
+}
+
+class ThirdGeneration extends SecondGeneration {
+}
+
+class PrivateDefault {
+	boolean called = false;
+
+	private PrivateDefault() {
+		called = true;
+	}
+}
+
+class CheckedDefault {
+	CheckedDefault() throws java.io.IOException {
+		throw new java.io.IOException("checked");
+	}
+}
+
+abstract class AbstractDefault {
+}
@@ -0,0 +1,170 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+public class DeriveTest {
+
+	private static EasyBuilder baseBuilder() {
+		return new EasyBuilder(Variant.class).setField("name", "base").setField("size", 10).setField("color", "red");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static InstructionList instructionsOf(EasyBuilder builder) throws Exception {
+		Field field = EasyBuilder.class.getDeclaredField("assemblyInstructions");
+		field.setAccessible(true);
+		return (InstructionList) (List<AssemblyInstruction>) field.get(builder);
+	}
+
+	@Test
+	public void testDerivedBuilderBuildsLikeItsParent() {
+		Variant variant = (Variant) baseBuilder().derive().build();
+
+		assertThat(variant.name, is("base"));
+		assertThat(variant.size, is(10));
+		assertThat(variant.color, is("red"));
+	}
+
+	@Test
+	public void testOverridesWin() {
+		Variant variant = (Variant) baseBuilder().with("color", "blue").setField("size", 11).build();
+
+		assertThat(variant.name, is("base"));
+		assertThat(variant.size, is(11));
+		assertThat(variant.color, is("blue"));
+	}
+
+	@Test
+	public void testParentIsUnchangedByDerivedBuilder() {
+		EasyBuilder base = baseBuilder();
+		base.with("color", "blue").bypassConstructor().build();
+
+		Variant variant = (Variant) base.build();
+
+		assertThat(variant.color, is("red"));
+		assertThat(variant.constructed, is(true));
+	}
+
+	@Test
+	public void testDerivedBuilderIsUnchangedByLaterParentChanges() {
+		EasyBuilder base = baseBuilder();
+		EasyBuilder derived = base.derive();
+		base.setField("name", "changed");
+
+		assertThat(((Variant) derived.build()).name, is("base"));
+		assertThat(((Variant) base.build()).name, is("changed"));
+	}
+
+	@Test
+	public void testDerivedBuilderStoresOnlyItsOverrides() throws Exception {
+		EasyBuilder base = baseBuilder();
+		EasyBuilder derived = base.with("color", "blue");
+
+		InstructionList instructions = instructionsOf(derived);
+		assertThat(instructions.getSharedCount(), is(4));
+		assertThat(instructions.getOwnCount(), is(1));
+
+		derived.build();
+		assertThat(instructionsOf(derived).getOwnCount(), is(1));
+	}
+
+	@Test
+	public void testDerivedBuildersShareInstructions() throws Exception {
+		EasyBuilder base = baseBuilder();
+		EasyBuilder first = base.derive();
+		EasyBuilder second = base.derive();
+
+		assertThat(instructionsOf(first).get(1), is(sameInstance(instructionsOf(second).get(1))));
+		assertThat(instructionsOf(first), is(not(sameInstance(instructionsOf(second)))));
+	}
+
+	@Test
+	public void testOverwrittenParentWriteIsLeftOutOfThePlan() {
+		boolean optimizing = EasyBuilder.isOptimizing();
+		EasyBuilder.setOptimizing(true);
+		try {
+			String plan = baseBuilder().with("color", "blue").describePlan();
+
+			assertThat(plan.contains("value::red"), is(false));
+			assertThat(plan.contains("value::blue"), is(true));
+		} finally {
+			EasyBuilder.setOptimizing(optimizing);
+		}
+	}
+
+	@Test
+	public void testTemplateCanBeDerived() {
+		EasyBuilder template = baseBuilder().asTemplate();
+		EasyBuilder derived = template.with("size", 12);
+
+		assertThat(derived.isTemplate(), is(false));
+		assertThat(((Variant) derived.build()).size, is(12));
+		try {
+			template.setField("size", 13);
+			fail("the template can not change");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	@Test
+	public void testManyVariantsFromOneBase() {
+		EasyBuilder base = baseBuilder().asTemplate();
+		for (int idx = 0; idx < 1000; idx++) {
+			Variant variant = (Variant) base.with("size", Integer.valueOf(idx)).build();
+			assertThat(variant.size, is(idx));
+			assertThat(variant.name, is("base"));
+		}
+	}
+
+	@Test
+	public void testCompiledDerivedBuilder() {
+		Variant variant = (Variant) baseBuilder().with("name", "compiled").compile().build();
+
+		assertThat(variant.name, is("compiled"));
+		assertThat(variant.color, is("red"));
+	}
+}
+
+class Variant {
+	boolean constructed;
+	String name;
+	int size;
+	String color;
+
+	Variant() {
+		constructed = true;
+	}
+}
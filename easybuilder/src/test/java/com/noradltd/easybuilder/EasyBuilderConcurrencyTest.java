@@ -0,0 +1,243 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EasyBuilderConcurrencyTest {
+
+	private static final int THREADS = 8;
+
+	private static final int BUILDS = 2000;
+
+	private ExecutorService executor;
+
+	private int savedThreshold;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(THREADS);
+		savedThreshold = EasyBuilder.getCompileThreshold();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		EasyBuilder.setCompileThreshold(savedThreshold);
+	}
+
+	private static EasyBuilder newTemplate() {
+		return new EasyBuilder(OneOfEach.class) {
+			{
+				setField("c", 'a');
+				setField("b", (byte) 1);
+				setField("s", (short) 2);
+				setField("i", 3);
+				setField("l", 4L);
+				setField("f", 5.0f);
+				setField("d", 6.0);
+				setField("t", true);
+			}
+		}.asTemplate();
+	}
+
+	private List<Object> buildConcurrently(final EasyBuilder builder) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			futures.add(executor.submit(new Callable<List<Object>>() {
+				public List<Object> call() throws Exception {
+					start.await();
+					List<Object> built = new ArrayList<Object>(BUILDS);
+					for (int idx = 0; idx < BUILDS; idx++) {
+						built.add(builder.build());
+					}
+					return built;
+				}
+			}));
+		}
+		start.countDown();
+		List<Object> all = new ArrayList<Object>();
+		for (Future<List<Object>> future : futures) {
+			all.addAll(future.get());
+		}
+		return all;
+	}
+
+	private static void assertFullyBuilt(Object built) {
+		OneOfEach instance = (OneOfEach) built;
+		assertThat(instance.c, is('a'));
+		assertThat(instance.b, is((byte) 1));
+		assertThat(instance.s, is((short) 2));
+		assertThat(instance.i, is(3));
+		assertThat(instance.l, is(4L));
+		assertThat(instance.f, is(5.0f));
+		assertThat(instance.d, is(6.0));
+		assertThat(instance.t, is(true));
+	}
+
+	private static int countDistinct(List<Object> built) {
+		Map<Object, Boolean> distinct = new IdentityHashMap<Object, Boolean>();
+		for (Object instance : built) {
+			distinct.put(instance, Boolean.TRUE);
+		}
+		return distinct.size();
+	}
+
+	@Test
+	public void testSharedTemplateBuildsCompleteDistinctInstances() throws Exception {
+		EasyBuilder.setCompileThreshold(0);
+
+		List<Object> built = buildConcurrently(newTemplate());
+
+		assertThat(built.size(), is(THREADS * BUILDS));
+		assertThat(countDistinct(built), is(THREADS * BUILDS));
+		for (Object instance : built) {
+			assertFullyBuilt(instance);
+		}
+	}
+
+	@Test
+	public void testSharedTemplateSurvivesPromotionUnderLoad() throws Exception {
+		EasyBuilder.setCompileThreshold(100);
+		EasyBuilder template = newTemplate();
+
+		List<Object> built = buildConcurrently(template);
+
+		assertThat(template.isCompiled(), is(true));
+		assertThat(countDistinct(built), is(THREADS * BUILDS));
+		for (Object instance : built) {
+			assertFullyBuilt(instance);
+		}
+	}
+
+	@Test
+	public void testConcurrentBuildsAreAllCountedTowardPromotion() throws Exception {
+		EasyBuilder.setCompileThreshold(THREADS * BUILDS + 1);
+		EasyBuilder template = newTemplate();
+
+		buildConcurrently(template);
+		assertThat(template.isCompiled(), is(false));
+
+		template.build();
+		assertThat(template.isCompiled(), is(true));
+	}
+
+	@Test
+	public void testSharedBuilderKeepsOneInstance() throws Exception {
+		EasyBuilder.setCompileThreshold(100);
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class).setField("i", 3);
+
+		List<Object> built = buildConcurrently(builder);
+
+		assertThat(countDistinct(built), is(1));
+		assertThat(((OneOfEach) built.get(0)).i, is(3));
+	}
+
+	@Test
+	public void testBuilderChangedWhileBuildingOnOtherThreads() throws Exception {
+		EasyBuilder.setCompileThreshold(50);
+		final EasyBuilder builder = new EasyBuilder(OneOfEach.class).setField("i", 3);
+		Future<List<Object>> builds = executor.submit(new Callable<List<Object>>() {
+			public List<Object> call() throws Exception {
+				return buildConcurrently(builder);
+			}
+		});
+
+		for (int idx = 0; idx < 100; idx++) {
+			builder.setField("l", (long) idx);
+		}
+		builds.get();
+
+		OneOfEach instance = (OneOfEach) builder.build();
+		assertThat(instance.i, is(3));
+		assertThat(instance.l, is(99L));
+	}
+
+	@Test
+	public void testBuildParallelReturnsInstancesInIndexOrder() {
+		EasyBuilder.setCompileThreshold(0);
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).setIndexedLongField("l", idx -> idx * 3L);
+
+		Object[] built = builder.buildParallel(THREADS * BUILDS, executor);
+
+		assertThat(countDistinct(Arrays.asList(built)), is(THREADS * BUILDS));
+		for (int idx = 0; idx < built.length; idx++) {
+			assertThat(((OneOfEach) built[idx]).i, is(idx));
+			assertThat(((OneOfEach) built[idx]).l, is(idx * 3L));
+		}
+	}
+
+	@Test
+	public void testBuildParallelPromotesALargeBatchBeforeSplittingIt() {
+		EasyBuilder.setCompileThreshold(1000);
+		EasyBuilder builder = newTemplate();
+
+		Object[] built = builder.buildParallel(THREADS * BUILDS, executor);
+
+		assertThat(builder.isCompiled(), is(true));
+		for (Object instance : built) {
+			assertFullyBuilt(instance);
+		}
+	}
+
+	@Test
+	public void testBuildParallelOnTheCommonPool() {
+		Object[] built = newTemplate().buildParallel(10);
+
+		assertThat(built.length, is(10));
+		for (Object instance : built) {
+			assertFullyBuilt(instance);
+		}
+	}
+
+	@Test
+	public void testBuildParallelPassesOnAFailure() {
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class).setIndexedField("i", idx -> "not an int");
+
+		try {
+			builder.buildParallel(THREADS * BUILDS, executor);
+			fail("the field can not take a String");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause() instanceof IllegalArgumentException, is(true));
+		}
+	}
+}
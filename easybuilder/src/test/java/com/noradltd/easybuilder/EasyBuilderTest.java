@@ -27,6 +27,7 @@ import static com.noradltd.easybuilder.FloatCloseToMatcher.closeTo;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -41,6 +42,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 
@@ -111,6 +113,22 @@ public class EasyBuilderTest {
 		assertThat(c.parentName, is(anotherChild.parentName));
 	}
 
+	@Test
+	public void testShouldInitializeFieldsThroughoutADeepHierarchy() {
+		final EasyBuilder builder = new EasyBuilder(DeepLevel6.class) {
+			{
+				bypassConstructor();
+				setField("level1", 1);
+				setField("level3", 3);
+				setField("level6", 6);
+			}
+		};
+		DeepLevel6 instance = (DeepLevel6) builder.build();
+		assertThat(instance.level1, is(1));
+		assertThat(instance.level3, is(3));
+		assertThat(instance.level6, is(6));
+	}
+
 	@Test
 	public void testConstructorShouldBeCalledByDefault() {
 
@@ -904,14 +922,14 @@ public class EasyBuilderTest {
 		((EasyBuilder) builder.build()).build();
 
 		boolean inOrder = true;
-		int lastId = -1;
+		long lastId = -1;
 		for (int idx = 0; inOrder && idx < assemblyInstructions.size(); idx++) {
 			EasyBuilder.AssemblyInstruction instruction = (EasyBuilder.AssemblyInstruction) assemblyInstructions
 					.get(idx);
-			Integer seqNum = (Integer) getPrivateFieldValue("sequenceId", instruction,
+			Long seqNum = (Long) getPrivateFieldValue("sequenceId", instruction,
 					EasyBuilder.BaseInstruction.class);
-			inOrder = seqNum.intValue() > lastId;
-			lastId = seqNum.intValue();
+			inOrder = seqNum.longValue() > lastId;
+			lastId = seqNum.longValue();
 		}
 		assertThat(inOrder, is(true));
 	}
@@ -937,14 +955,14 @@ public class EasyBuilderTest {
 		((EasyBuilder) builder.build()).build();
 
 		boolean inOrder = true;
-		int lastId = -1;
+		long lastId = -1;
 		for (int idx = 0; inOrder && idx < assemblyInstructions.size(); idx++) {
 			EasyBuilder.AssemblyInstruction instruction = (EasyBuilder.AssemblyInstruction) assemblyInstructions
 					.get(idx);
-			Integer seqNum = (Integer) getPrivateFieldValue("sequenceId", instruction,
+			Long seqNum = (Long) getPrivateFieldValue("sequenceId", instruction,
 					EasyBuilder.BaseInstruction.class);
-			inOrder = seqNum.intValue() > lastId;
-			lastId = seqNum.intValue();
+			inOrder = seqNum.longValue() > lastId;
+			lastId = seqNum.longValue();
 		}
 		assertThat(inOrder, is(true));
 	}
@@ -987,18 +1005,32 @@ public class EasyBuilderTest {
 		((EasyBuilder) builder.build()).build();
 
 		boolean inOrder = true;
-		int lastId = -1;
+		long lastId = -1;
 		for (int idx = 0; inOrder && idx < assemblyInstructions.size(); idx++) {
 			EasyBuilder.AssemblyInstruction instruction = (EasyBuilder.AssemblyInstruction) assemblyInstructions
 					.get(idx);
-			Integer seqNum = (Integer) getPrivateFieldValue("sequenceId", instruction,
+			Long seqNum = (Long) getPrivateFieldValue("sequenceId", instruction,
 					EasyBuilder.BaseInstruction.class);
-			inOrder = seqNum.intValue() > lastId;
-			lastId = seqNum.intValue();
+			inOrder = seqNum.longValue() > lastId;
+			lastId = seqNum.longValue();
 		}
 		assertThat(inOrder, is(true));
 	}
 
+	@Test
+	public void testOrderIsMaintainedPastTheIntRange() throws IllegalAccessException, NoSuchFieldException {
+		AtomicLong sequence = (AtomicLong) getPrivateFieldValue("sequence", null,
+				EasyBuilder.BaseInstruction.class);
+		long start = Math.max(sequence.get(), Integer.MAX_VALUE - 1L);
+		sequence.set(start);
+
+		EasyBuilder.SetFieldInstruction before = new EasyBuilder.SetFieldInstruction("before", "first");
+		EasyBuilder.SetFieldInstruction after = new EasyBuilder.SetFieldInstruction("after", "second");
+
+		assertThat(before.compareTo(after) < 0, is(true));
+		assertThat(after.compareTo(before) > 0, is(true));
+	}
+
 	@Test
 	public void testMethodInvokeCausesException() {
 
@@ -1036,240 +1068,305 @@ public class EasyBuilderTest {
 		}
 	}
 
-}
+	@Test
+	public void testRepeatedBuildsReuseThePlan() throws NoSuchFieldException, IllegalAccessException {
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class) {
+			{
+				setField("i", 3);
+			}
+		};
 
-//
-// Test classes
-// Please note, coverage reporting below this point is meaningless since much of
-// the code is loaded by reflection
-//
-class InstanceCounter {
-	static int count = 0;
+		builder.build();
+		Object plan = getPrivateFieldValue("assemblyPlan", builder, EasyBuilder.class);
+		builder.build();
 
-	// call this the first time the class is used in a test context.
-	static void reset() {
-		count = 0;
+		assertThat(plan, is(notNullValue()));
+		assertThat(getPrivateFieldValue("assemblyPlan", builder, EasyBuilder.class), is(sameInstance(plan)));
 	}
 
-	int id = ++count;
-	boolean constructed = false;
+	@Test
+	public void testChangingTheBuilderReplacesThePlan() throws NoSuchFieldException, IllegalAccessException {
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class);
+		builder.build();
+		Object plan = getPrivateFieldValue("assemblyPlan", builder, EasyBuilder.class);
+
+		builder.setField("i", 3);
+		OneOfEach instance = (OneOfEach) builder.build();
 
-	InstanceCounter() {
-		constructed = true;
+		assertThat(getPrivateFieldValue("assemblyPlan", builder, EasyBuilder.class), is(not(sameInstance(plan))));
+		assertThat(instance.i, is(3));
 	}
-}
 
-class Parent {
-	public String parentName;
+	@Test
+	public void testBypassingAfterABuildReplacesThePlan() {
+		InstanceCounter.reset();
+		EasyBuilder builder = new EasyBuilder(InstanceCounter.class);
+		builder.build();
 
-	public Parent(String name) {
-		this.parentName = name;
+		builder.bypassConstructor();
+		builder.setField("id", 7);
+		InstanceCounter instance = (InstanceCounter) builder.build();
+
+		assertThat(instance.id, is(7));
 	}
-}
 
-class Child extends Parent {
-	public String childName;
+	@Test
+	public void testBuildingTwiceReappliesInstructionsToTheSameInstance() {
+		EasyBuilder builder = new EasyBuilder(ConstructorCalledClass.class);
 
-	public Child(String childName, String parentName) {
-		super(parentName);
-		this.childName = childName;
+		assertThat(builder.build(), is(sameInstance(builder.build())));
 	}
-}
 
-class OneOfEach {
-	char c;
-	byte b;
-	short s;
-	int i;
-	long l;
-	float f;
-	double d;
-	boolean t;
-}
+	@Test
+	public void testTemplateCreatesANewInstanceForEachBuild() {
+		EasyBuilder builder = new EasyBuilder(SomeNonJavaBean.class) {
+			{
+				bypassConstructor();
+				setField("param1", "someValue");
+				setField("param2", 42);
+				asTemplate();
+			}
+		};
 
-class OneOfEachPlus extends OneOfEach {
-	Object obj = null;
-}
+		SomeNonJavaBean first = (SomeNonJavaBean) builder.build();
+		SomeNonJavaBean second = (SomeNonJavaBean) builder.build();
 
-class Dates {
-	Calendar cal;
-	Date date;
-}
+		assertThat(builder.isTemplate(), is(true));
+		assertThat(second, is(not(sameInstance(first))));
+		assertThat(second, is(first));
+	}
 
-class PMethods {
-	boolean privateCalled = false;
-	boolean protectedCalled = false;
-	boolean packageCalled = false;
-	boolean publicCalled = false;
-	boolean finalCalled = false;
-	static boolean staticCalled = false;
-	boolean returnCalled = false;
+	@Test
+	public void testPromotedTemplateCreatesANewInstanceForEachBuild() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(1);
+		try {
+			EasyBuilder builder = new EasyBuilder(OneOfEach.class).setField("i", 3).asTemplate();
 
-	@SuppressWarnings("unused")
-	private void privateMethod() {
-		privateCalled = true;
-	}
+			OneOfEach first = (OneOfEach) builder.build();
+			OneOfEach second = (OneOfEach) builder.build();
 
-	protected void protectedMethod() {
-		protectedCalled = true;
+			assertThat(builder.isCompiled(), is(true));
+			assertThat(second, is(not(sameInstance(first))));
+			assertThat(second.i, is(3));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
 	}
 
-	void packageMethod() {
-		packageCalled = true;
-	}
+	@Test
+	public void testTemplateCanNotBeChanged() {
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class).asTemplate();
 
-	public void publicMethod() {
-		publicCalled = true;
+		try {
+			builder.setField("i", 3);
+			fail("a template's instructions can not be changed");
+		} catch (IllegalStateException ise) {
+			// OK
+		}
+		try {
+			builder.bypassConstructor();
+			fail("a template's instructions can not be changed");
+		} catch (IllegalStateException ise) {
+			// OK
+		}
 	}
 
-	final protected void finalMethod() {
-		finalCalled = true;
-	}
+	@Test
+	public void testBuildManyCreatesANewInstanceForEachIndex() {
+		Object[] batch = new EasyBuilder(OneOfEach.class).setField("i", 3).buildMany(3);
 
-	@SuppressWarnings("unused")
-	static private void staticMethod() {
-		staticCalled = true;
+		assertThat(batch.length, is(3));
+		assertThat(((OneOfEach) batch[0]).i, is(3));
+		assertThat(batch[1], is(not(sameInstance(batch[0]))));
+		assertThat(batch[2], is(not(sameInstance(batch[1]))));
 	}
 
-	@SuppressWarnings("unused")
-	private Object returnMethod() {
-		returnCalled = true;
-		return new Object();
+	@Test
+	public void testBuildIntoSetsIndexedFields() {
+		Object[] batch = new EasyBuilder(OneOfEachPlus.class) {
+			{
+				setIndexedIntField("i", idx -> idx * 2);
+				setIndexedLongField("l", idx -> idx + 10L);
+				setIndexedDoubleField("d", idx -> idx / 2.0);
+				setIndexedBooleanField("t", idx -> idx % 2 == 0);
+				setIndexedField("obj", idx -> "row" + idx);
+			}
+		}.buildInto(new Object[4]);
+
+		for (int idx = 0; idx < batch.length; idx++) {
+			OneOfEachPlus instance = (OneOfEachPlus) batch[idx];
+			assertThat(instance.i, is(idx * 2));
+			assertThat(instance.l, is(idx + 10L));
+			assertThat(instance.d, is(idx / 2.0));
+			assertThat(instance.t, is(idx % 2 == 0));
+			assertThat(instance.obj, is((Object) ("row" + idx)));
+		}
 	}
-}
 
-class ExtensionOfPMethods extends PMethods {
-}
+	@Test
+	public void testIndexedIntWidensToALongField() {
+		OneOfEach instance = (OneOfEach) new EasyBuilder(OneOfEach.class).setIndexedIntField("l", idx -> idx + 7).build();
 
-class MethodsAndMembers extends PMethods {
-	char c;
-	byte b;
-	short s;
-	int i;
-	long l;
-	float f;
-	double d;
-	boolean t;
-}
+		assertThat(instance.l, is(7L));
+	}
 
-class AltConstructor {
-	boolean defaultWasCalled = false;
-	boolean altWasCalled = false;
-	Object obj = null;
+	@Test
+	public void testPromotedBatchSetsIndexedFields() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(2);
+		try {
+			EasyBuilder builder = new EasyBuilder(OneOfEach.class).setIndexedIntField("i", idx -> idx).setField("t", true);
 
-	public AltConstructor() {
-		defaultWasCalled = true;
-	}
+			Object[] batch = builder.buildMany(10);
 
-	public AltConstructor(Object obj_p) {
-		altWasCalled = true;
-		obj = obj_p;
+			assertThat(builder.isCompiled(), is(true));
+			for (int idx = 0; idx < batch.length; idx++) {
+				assertThat(((OneOfEach) batch[idx]).i, is(idx));
+				assertThat(((OneOfEach) batch[idx]).t, is(true));
+			}
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
 	}
 
-}
+	@Test
+	public void testBatchLeavesTheBuildersInstanceAlone() {
+		EasyBuilder builder = new EasyBuilder(OneOfEach.class).setField("i", 3);
+		Object instance = builder.build();
 
-class ExtendsAltConstructor extends AltConstructor {
-	boolean substance = false;
-}
+		Object[] batch = builder.buildMany(2);
 
-class SuperType {
-	@SuppressWarnings("unused")
-	private Object x;
-}
+		assertThat(batch[0], is(not(sameInstance(instance))));
+		assertThat(builder.build(), is(sameInstance(instance)));
+	}
 
-class ExtendsSuperType extends SuperType {
-	@SuppressWarnings("unused")
-	private Object x;
-}
+	@Test(expected = RuntimeException.class)
+	public void testIndexedFieldOfTheWrongTypeFails() {
+		new EasyBuilder(OneOfEach.class).setIndexedDoubleField("i", idx -> idx).buildMany(1);
+	}
 
-class NoDefConst {
-	boolean primaryConstCalled = false;
+	@Test
+	public void testHotBuilderIsPromotedToCompiledInstructions() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(3);
+		try {
+			long promotions = EasyBuilder.getPromotionCount();
+			EasyBuilder builder = new EasyBuilder(OneOfEach.class) {
+				{
+					setField("i", 3);
+					setField("l", 4L);
+				}
+			};
 
-	public NoDefConst(Object o) {
-		primaryConstCalled = true;
+			builder.build();
+			builder.build();
+			assertThat(builder.isCompiled(), is(false));
+			OneOfEach instance = (OneOfEach) builder.build();
+
+			assertThat(builder.isCompiled(), is(true));
+			assertThat(EasyBuilder.getPromotionCount(), is(promotions + 1));
+			assertThat(instance.i, is(3));
+			assertThat(instance.l, is(4L));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
 	}
-}
 
-class SomeNonJavaBean {
+	@Test
+	public void testPromotedBuilderKeepsItsInstance() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(2);
+		try {
+			EasyBuilder builder = new EasyBuilder(ConstructorCalledClass.class);
 
-	private String param1;
-	private int param2;
-	private SomeParameter someParameter;
+			Object first = builder.build();
+			Object second = builder.build();
 
-	public SomeNonJavaBean() {
-		throw new RuntimeException("Should not be invoked");
+			assertThat(builder.isCompiled(), is(true));
+			assertThat(second, is(sameInstance(first)));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
 	}
 
-	public SomeNonJavaBean(String param1, int param2) {
-		this.param1 = param1;
-		this.param2 = param2;
-		this.someParameter = null;
-	}
+	@Test
+	public void testChangingAPromotedBuilderReturnsItToTheInterpreter() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(1);
+		try {
+			EasyBuilder builder = new EasyBuilder(OneOfEach.class);
+			builder.build();
+			assertThat(builder.isCompiled(), is(true));
 
-	public SomeNonJavaBean(String param1, int param2, SomeParameter someParameter) {
-		this.param1 = param1;
-		this.param2 = param2;
-		this.someParameter = someParameter;
-	}
+			builder.setField("i", 42);
 
-	public SomeParameter getSomeParameter() {
-		return someParameter;
+			assertThat(builder.isCompiled(), is(false));
+			assertThat(((OneOfEach) builder.build()).i, is(42));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
+		}
 	}
 
-	public boolean equals(Object obj) {
-		if (obj == null) {
-			return false;
+	@Test
+	public void testPromotionCanBeTurnedOff() {
+		int threshold = EasyBuilder.getCompileThreshold();
+		EasyBuilder.setCompileThreshold(0);
+		try {
+			EasyBuilder builder = new EasyBuilder(OneOfEach.class);
+			for (int idx = 0; idx < 10; idx++) {
+				builder.build();
+			}
+
+			assertThat(builder.isCompiled(), is(false));
+		} finally {
+			EasyBuilder.setCompileThreshold(threshold);
 		}
-		SomeNonJavaBean another = (SomeNonJavaBean) obj;
-		return this.param1.equals(another.param1) && this.param2 == another.param2;
 	}
 
 }
 
-class SomeParameter {
+//
+// Test classes
+// Please note, coverage reporting below this point is meaningless since much of
+// the code is loaded by reflection
+//
+
+class DeepLevel1 {
+	int level1;
+}
 
-	protected Date someDate;
-	public double money;
+class DeepLevel2 extends DeepLevel1 {
+	int level2;
+}
 
-	public SomeParameter(Date someDate, double money) {
-		this.someDate = someDate;
-		this.money = money;
-	}
+class DeepLevel3 extends DeepLevel2 {
+	int level3;
 }
 
-class ConstructorCalledClass {
-	boolean constructorCalled = false;
+class DeepLevel4 extends DeepLevel3 {
+	int level4;
+}
 
-	public ConstructorCalledClass() {
-		constructorCalled = true;
-	}
+class DeepLevel5 extends DeepLevel4 {
+	int level5;
 }
 
-class OneOfEachPrivates {
-	@SuppressWarnings("unused")
-	private char c;
-	@SuppressWarnings("unused")
-	private byte b;
-	@SuppressWarnings("unused")
-	private short s;
-	@SuppressWarnings("unused")
-	private int i;
-	@SuppressWarnings("unused")
-	private long l;
-	@SuppressWarnings("unused")
-	private float f;
-	@SuppressWarnings("unused")
-	private double d;
-	@SuppressWarnings("unused")
-	private boolean t;
+class DeepLevel6 extends DeepLevel5 {
+	int level6;
 }
 
-class ExtendsOneOfEachPrivates extends OneOfEachPrivates {
+class MethodsAndMembers extends PMethods {
+	char c;
+	byte b;
+	short s;
+	int i;
+	long l;
+	float f;
+	double d;
+	boolean t;
 }
 
-class ExeceptionalExecution {
-	@SuppressWarnings("unused")
-	private void method() {
-		throw new RuntimeException();
-	}
+class ExtendsAltConstructor extends AltConstructor {
+	boolean substance = false;
 }
@@ -0,0 +1,81 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+public class FieldIndexTest {
+
+	@Test
+	public void testIndexIsSharedPerClass() {
+		assertThat(FieldIndex.of(Child.class), is(sameInstance(FieldIndex.of(Child.class))));
+	}
+
+	@Test
+	public void testDeclaredFieldIsFound() {
+		Field field = FieldIndex.of(Child.class).getField("childName");
+
+		assertThat(field.getDeclaringClass().equals(Child.class), is(true));
+	}
+
+	@Test
+	public void testInheritedFieldIsFound() {
+		Field field = FieldIndex.of(Child.class).getField("parentName");
+
+		assertThat(field.getDeclaringClass().equals(Parent.class), is(true));
+	}
+
+	@Test
+	public void testMostDerivedFieldMasksParentField() {
+		Field field = FieldIndex.of(ExtendsSuperType.class).getField("x");
+
+		assertThat(field.getDeclaringClass().equals(ExtendsSuperType.class), is(true));
+	}
+
+	@Test
+	public void testMaskedFieldIsFoundFromDeclaringClass() {
+		Field field = FieldIndex.of(SuperType.class).getField("x");
+
+		assertThat(field.getDeclaringClass().equals(SuperType.class), is(true));
+	}
+
+	@Test
+	public void testPrivateFieldsAreOpened() {
+		Field field = FieldIndex.of(ExtendsOneOfEachPrivates.class).getField("i");
+
+		assertThat(field.canAccess(new ExtendsOneOfEachPrivates()), is(true));
+	}
+
+	@Test
+	public void testUnknownFieldIsNull() {
+		assertThat(FieldIndex.of(Child.class).getField("nonExistentField"), is(nullValue()));
+	}
+}
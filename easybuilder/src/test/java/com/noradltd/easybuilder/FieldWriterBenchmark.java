@@ -0,0 +1,189 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares writing each primitive type, and an object, through
+ * <code>java.lang.reflect.Field</code> against the FieldWriter bound to the
+ * same field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldWriterBenchmark {
+
+	private final OneOfEachPlus target = new OneOfEachPlus();
+	private final Object value = new Object();
+
+	private Field c, b, s, i, l, f, d, t, obj;
+	private FieldWriter cw, bw, sw, iw, lw, fw, dw, tw, objw;
+
+	@Setup
+	public void setUp() {
+		FieldIndex index = FieldIndex.of(OneOfEachPlus.class);
+		c = index.getField("c");
+		b = index.getField("b");
+		s = index.getField("s");
+		i = index.getField("i");
+		l = index.getField("l");
+		f = index.getField("f");
+		d = index.getField("d");
+		t = index.getField("t");
+		obj = index.getField("obj");
+		cw = index.getWriter("c");
+		bw = index.getWriter("b");
+		sw = index.getWriter("s");
+		iw = index.getWriter("i");
+		lw = index.getWriter("l");
+		fw = index.getWriter("f");
+		dw = index.getWriter("d");
+		tw = index.getWriter("t");
+		objw = index.getWriter("obj");
+	}
+
+	@Benchmark
+	public Object fieldChar() throws IllegalAccessException {
+		c.setChar(target, 'a');
+		return target;
+	}
+
+	@Benchmark
+	public Object writerChar() throws IllegalAccessException {
+		cw.setChar(target, 'a');
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldByte() throws IllegalAccessException {
+		b.setByte(target, (byte) 1);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerByte() throws IllegalAccessException {
+		bw.setByte(target, (byte) 1);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldShort() throws IllegalAccessException {
+		s.setShort(target, (short) 2);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerShort() throws IllegalAccessException {
+		sw.setShort(target, (short) 2);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldInt() throws IllegalAccessException {
+		i.setInt(target, 3);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerInt() throws IllegalAccessException {
+		iw.setInt(target, 3);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldLong() throws IllegalAccessException {
+		l.setLong(target, 4L);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerLong() throws IllegalAccessException {
+		lw.setLong(target, 4L);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldFloat() throws IllegalAccessException {
+		f.setFloat(target, 5.0f);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerFloat() throws IllegalAccessException {
+		fw.setFloat(target, 5.0f);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldDouble() throws IllegalAccessException {
+		d.setDouble(target, 6.0);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerDouble() throws IllegalAccessException {
+		dw.setDouble(target, 6.0);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldBoolean() throws IllegalAccessException {
+		t.setBoolean(target, true);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerBoolean() throws IllegalAccessException {
+		tw.setBoolean(target, true);
+		return target;
+	}
+
+	@Benchmark
+	public Object fieldObject() throws IllegalAccessException {
+		obj.set(target, value);
+		return target;
+	}
+
+	@Benchmark
+	public Object writerObject() throws IllegalAccessException {
+		objw.set(target, value);
+		return target;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class FieldWriterTest {
+
+	private FieldWriter writerOf(Class<?> clazz, String fieldName) {
+		return FieldIndex.of(clazz).getWriter(fieldName);
+	}
+
+	@Test
+	public void testWriterIsSharedByEveryClassThatSeesTheField() {
+		assertThat(writerOf(OneOfEachPlus.class, "i"), is(sameInstance(writerOf(OneOfEach.class, "i"))));
+	}
+
+	@Test
+	public void testEachPrimitiveKindIsWrittenDirectly() throws IllegalAccessException {
+		OneOfEach target = new OneOfEach();
+
+		writerOf(OneOfEach.class, "c").setChar(target, 'a');
+		writerOf(OneOfEach.class, "b").setByte(target, (byte) 1);
+		writerOf(OneOfEach.class, "s").setShort(target, (short) 2);
+		writerOf(OneOfEach.class, "i").setInt(target, 3);
+		writerOf(OneOfEach.class, "l").setLong(target, 4L);
+		writerOf(OneOfEach.class, "f").setFloat(target, 5.0f);
+		writerOf(OneOfEach.class, "d").setDouble(target, 6.0);
+		writerOf(OneOfEach.class, "t").setBoolean(target, true);
+
+		assertThat(target.c, is('a'));
+		assertThat(target.b, is((byte) 1));
+		assertThat(target.s, is((short) 2));
+		assertThat(target.i, is(3));
+		assertThat(target.l, is(4L));
+		assertThat(target.f, is(5.0f));
+		assertThat(target.d, is(6.0));
+		assertThat(target.t, is(true));
+	}
+
+	@Test
+	public void testPrimitiveWritersAreSpecialized() {
+		assertThat(writerOf(OneOfEach.class, "i"), is(instanceOf(FieldWriter.IntWriter.class)));
+		assertThat(writerOf(OneOfEach.class, "d"), is(instanceOf(FieldWriter.DoubleWriter.class)));
+		assertThat(writerOf(OneOfEachPlus.class, "obj"), is(instanceOf(FieldWriter.ReferenceWriter.class)));
+	}
+
+	@Test
+	public void testPrimitiveValuesAreWidened() throws IllegalAccessException {
+		OneOfEach target = new OneOfEach();
+
+		writerOf(OneOfEach.class, "l").setInt(target, 3);
+		writerOf(OneOfEach.class, "d").setChar(target, 'a');
+		writerOf(OneOfEach.class, "i").setByte(target, (byte) 7);
+
+		assertThat(target.l, is(3L));
+		assertThat(target.d, is((double) 'a'));
+		assertThat(target.i, is(7));
+	}
+
+	@Test
+	public void testPrimitiveValuesAreNotNarrowed() throws IllegalAccessException {
+		try {
+			writerOf(OneOfEach.class, "i").setLong(new OneOfEach(), 3L);
+			fail("a long can not be written to an int field");
+		} catch (IllegalArgumentException iae) {
+			// OK
+		}
+	}
+
+	@Test
+	public void testRejectionNamesTheTypeGiven() throws IllegalAccessException {
+		try {
+			writerOf(OneOfEach.class, "s").setChar(new OneOfEach(), 'a');
+			fail("a char can not be written to a short field");
+		} catch (IllegalArgumentException iae) {
+			assertThat(iae.getMessage().endsWith(" to char"), is(true));
+		}
+		try {
+			writerOf(OneOfEach.class, "b").set(new OneOfEach(), Integer.valueOf(1));
+			fail("an Integer can not be written to a byte field");
+		} catch (IllegalArgumentException iae) {
+			assertThat(iae.getMessage().endsWith(" to java.lang.Integer"), is(true));
+		}
+	}
+
+	@Test
+	public void testWrappedValuesAreUnwrapped() throws IllegalAccessException {
+		OneOfEach target = new OneOfEach();
+
+		writerOf(OneOfEach.class, "i").set(target, Integer.valueOf(9));
+		writerOf(OneOfEach.class, "l").set(target, Short.valueOf((short) 8));
+
+		assertThat(target.i, is(9));
+		assertThat(target.l, is(8L));
+	}
+
+	@Test
+	public void testNullCanNotBeWrittenToAPrimitiveField() throws IllegalAccessException {
+		try {
+			writerOf(OneOfEach.class, "i").set(new OneOfEach(), null);
+			fail("null can not be written to an int field");
+		} catch (IllegalArgumentException iae) {
+			// OK
+		}
+	}
+
+	@Test
+	public void testReferenceOfTheWrongTypeIsRejected() throws IllegalAccessException {
+		try {
+			writerOf(Dates.class, "date").set(new Dates(), "not a date");
+			fail("a String can not be written to a Date field");
+		} catch (IllegalArgumentException iae) {
+			// OK
+		}
+	}
+
+	@Test
+	public void testFinalFieldsAreWrittenReflectively() throws IllegalAccessException {
+		FinalField target = new FinalField();
+		FieldWriter writer = writerOf(FinalField.class, "value");
+
+		writer.setInt(target, 12);
+
+		assertThat(writer, is(instanceOf(FieldWriter.ReflectiveWriter.class)));
+		assertThat(target.value, is(12));
+	}
+
+	static class FinalField {
+		final int value;
+
+		FinalField() {
+			value = 0;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways a builder can create an instance: a plain new
+ * expression, the deprecated Class.newInstance the default instantiation
+ * used to call, the cached default constructor as a MethodHandle and as a
+ * generated Supplier, and the Objenesis instantiator behind
+ * bypassConstructor().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+
+	private Class<?> clazz;
+
+	private MethodHandle handle;
+
+	private Supplier<Object> supplier;
+
+	private ObjectInstantiator<?> instantiator;
+
+	@Setup
+	public void setUp() throws InstantiationException {
+		clazz = ConstructorCalledClass.class;
+		ConstructorResolver.DefaultConstructor constructor = ConstructorResolver.of(clazz).getDefaultConstructor();
+		handle = constructor.handle;
+		supplier = constructor.supplier;
+		instantiator = InstantiatorRegistry.getInstantiatorOf(clazz);
+	}
+
+	@Benchmark
+	public Object newExpression() {
+		return new ConstructorCalledClass();
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public Object classNewInstance() throws Exception {
+		return clazz.newInstance();
+	}
+
+	@Benchmark
+	public Object methodHandle() throws Throwable {
+		return (Object) handle.invokeExact();
+	}
+
+	@Benchmark
+	public Object supplier() {
+		return supplier.get();
+	}
+
+	@Benchmark
+	public Object objenesis() {
+		return instantiator.newInstance();
+	}
+
+	@Benchmark
+	public Object defaultBuild() {
+		return new EasyBuilder(ConstructorCalledClass.class).build();
+	}
+}
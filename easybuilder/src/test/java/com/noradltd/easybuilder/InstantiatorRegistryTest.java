@@ -0,0 +1,75 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+public class InstantiatorRegistryTest {
+
+	@Test
+	public void testInstantiatorIsSharedBetweenLookups() {
+		ObjectInstantiator<?> first = InstantiatorRegistry.getInstantiatorOf(ConstructorCalledClass.class);
+		ObjectInstantiator<?> second = InstantiatorRegistry.getInstantiatorOf(ConstructorCalledClass.class);
+
+		assertThat(second, is(sameInstance(first)));
+	}
+
+	@Test
+	public void testInstantiatorBypassesConstructor() {
+		ObjectInstantiator<?> instantiator = InstantiatorRegistry.getInstantiatorOf(ConstructorCalledClass.class);
+
+		ConstructorCalledClass instance = (ConstructorCalledClass) instantiator.newInstance();
+
+		assertThat(instance.constructorCalled, is(false));
+	}
+
+	@Test
+	public void testRepeatedLookupsAreCountedAsHits() {
+		InstantiatorRegistry.getInstantiatorOf(NoDefConst.class);
+		long hits = InstantiatorRegistry.getHitCount();
+		long misses = InstantiatorRegistry.getMissCount();
+
+		InstantiatorRegistry.getInstantiatorOf(NoDefConst.class);
+
+		assertThat(InstantiatorRegistry.getHitCount(), is(greaterThan(hits)));
+		assertThat(InstantiatorRegistry.getMissCount(), is(misses));
+	}
+
+	@Test
+	public void testBypassingBuildsUseTheRegistry() {
+		InstantiatorRegistry.getInstantiatorOf(AltConstructor.class);
+		long hits = InstantiatorRegistry.getHitCount();
+
+		new EasyBuilder(AltConstructor.class).bypassConstructor().build();
+		new EasyBuilder(AltConstructor.class).bypassConstructor().build();
+
+		assertThat(InstantiatorRegistry.getHitCount() - hits >= 2, is(true));
+	}
+}
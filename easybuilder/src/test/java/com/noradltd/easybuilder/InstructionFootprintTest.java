@@ -0,0 +1,118 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+
+/**
+ * Measures the instructions with JOL. Each field instruction holds only its
+ * own value, and no instruction holds a reference to its builder.
+ */
+public class InstructionFootprintTest {
+
+	private static final Class<?>[] FIELD_INSTRUCTIONS = { EasyBuilder.SetFieldInstruction.class, EasyBuilder.BooleanFieldInstruction.class,
+			EasyBuilder.ByteFieldInstruction.class, EasyBuilder.CharFieldInstruction.class, EasyBuilder.ShortFieldInstruction.class,
+			EasyBuilder.IntFieldInstruction.class, EasyBuilder.LongFieldInstruction.class, EasyBuilder.FloatFieldInstruction.class,
+			EasyBuilder.DoubleFieldInstruction.class };
+
+	private static final Class<?>[] OTHER_INSTRUCTIONS = { EasyBuilder.BasicInstantiateInstruction.class,
+			EasyBuilder.BypassingInstantiateInstruction.class, EasyBuilder.ParameterizedInstantiateInstruction.class,
+			EasyBuilder.IndexedIntInstruction.class, EasyBuilder.MethodInvocationInstruction.class, EasyBuilder.SetterInstruction.class,
+			EasyBuilder.SetFieldFromResultInstruction.class };
+
+	private static long sizeOf(Class<?> clazz) {
+		return ClassLayout.parseClass(clazz).instanceSize();
+	}
+
+	@Test
+	public void testFieldInstructionsAreSmallerThanTheOldLayout() {
+		long legacy = sizeOf(LegacySetFieldInstruction.class);
+		for (Class<?> instruction : FIELD_INSTRUCTIONS) {
+			long size = sizeOf(instruction);
+			assertThat(instruction.getSimpleName(), size * 3, is(lessThanOrEqualTo(legacy * 2)));
+		}
+	}
+
+	@Test
+	public void testNarrowKindsAreNoLargerThanWideOnes() {
+		assertThat(sizeOf(EasyBuilder.IntFieldInstruction.class), is(lessThanOrEqualTo(sizeOf(EasyBuilder.LongFieldInstruction.class))));
+		assertThat(sizeOf(EasyBuilder.BooleanFieldInstruction.class), is(lessThanOrEqualTo(sizeOf(EasyBuilder.DoubleFieldInstruction.class))));
+	}
+
+	@Test
+	public void testInstructionsDoNotReferenceTheirBuilder() {
+		assertNoOuterReference(FIELD_INSTRUCTIONS);
+		assertNoOuterReference(OTHER_INSTRUCTIONS);
+	}
+
+	private static void assertNoOuterReference(Class<?>[] instructions) {
+		for (Class<?> instruction : instructions) {
+			for (Class<?> type = instruction; type != Object.class; type = type.getSuperclass()) {
+				for (Field field : type.getDeclaredFields()) {
+					assertThat(new StringBuffer(instruction.getName()).append(".").append(field.getName()).toString(),
+							EasyBuilder.class.isAssignableFrom(field.getType()), is(false));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSavingsAcrossManyInstructions() {
+		long legacy = sizeOf(LegacySetFieldInstruction.class);
+		long compact = sizeOf(EasyBuilder.IntFieldInstruction.class);
+		assertThat(compact, is(lessThan(legacy)));
+		assertThat(100000 * (legacy - compact), is(greaterThanOrEqualTo(100000 * legacy / 3)));
+	}
+}
+
+/**
+ * The layout of SetFieldInstruction before it was split by kind: a reference
+ * to its builder, every primitive slot, and the value, type and resolution.
+ */
+@SuppressWarnings("unused")
+class LegacySetFieldInstruction {
+	private EasyBuilder outer;
+	private int sequenceId;
+	private String fieldName;
+	private Object value;
+	private char c;
+	private byte b;
+	private short s;
+	private int i;
+	private long l;
+	private float f;
+	private double d;
+	private boolean t;
+	private Class<?> type;
+	private Object resolution;
+}
@@ -0,0 +1,129 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+public class InstructionListTest {
+
+	private static AssemblyInstruction write(int value) {
+		return new EasyBuilder.IntFieldInstruction("size", value, null);
+	}
+
+	private static InstructionList listOf(AssemblyInstruction... instructions) {
+		InstructionList list = new InstructionList();
+		list.addAll(Arrays.asList(instructions));
+		return list;
+	}
+
+	@Test
+	public void testDerivedListSharesInstructions() {
+		InstructionList parent = listOf(write(1), write(2));
+		InstructionList child = InstructionList.derive(parent);
+
+		assertThat(child, is((List<AssemblyInstruction>) parent));
+		assertThat(child.getSharedCount(), is(2));
+		assertThat(child.getOwnCount(), is(0));
+		assertThat(parent.getSharedCount(), is(2));
+	}
+
+	@Test
+	public void testAppendsAreNotShared() {
+		InstructionList parent = listOf(write(1));
+		InstructionList child = InstructionList.derive(parent);
+		AssemblyInstruction childWrite = write(2);
+		AssemblyInstruction parentWrite = write(3);
+
+		child.add(childWrite);
+		parent.add(parentWrite);
+
+		assertThat(child.size(), is(2));
+		assertThat(child.get(1), is(childWrite));
+		assertThat(parent.size(), is(2));
+		assertThat(parent.get(1), is(parentWrite));
+	}
+
+	@Test
+	public void testChangingSharedInstructionsCopiesThem() {
+		AssemblyInstruction first = write(1);
+		InstructionList parent = listOf(first, write(2));
+		InstructionList child = InstructionList.derive(parent);
+
+		child.remove(0);
+
+		assertThat(child.size(), is(1));
+		assertThat(child.getSharedCount(), is(0));
+		assertThat(parent.size(), is(2));
+		assertThat(parent.get(0), is(first));
+	}
+
+	@Test
+	public void testSortingAnOrderedListCopiesNothing() {
+		InstructionList parent = listOf(new EasyBuilder.BasicInstantiateInstruction(), write(1), write(2));
+		InstructionList child = InstructionList.derive(parent);
+		child.add(write(3));
+
+		Collections.sort(child);
+
+		assertThat(child.getSharedCount(), is(3));
+		assertThat(child.getOwnCount(), is(1));
+	}
+
+	@Test
+	public void testDerivationChainsKeepTheirOrder() {
+		InstructionList list = new InstructionList();
+		List<AssemblyInstruction> expected = new ArrayList<AssemblyInstruction>();
+		for (int generation = 0; generation < 10; generation++) {
+			for (int idx = 0; idx < 3; idx++) {
+				AssemblyInstruction instruction = write(generation * 3 + idx);
+				list.add(instruction);
+				expected.add(instruction);
+			}
+			list = InstructionList.derive(list);
+		}
+
+		assertThat(list, is(expected));
+		assertThat(list.getSharedCount(), is(30));
+	}
+
+	@Test
+	public void testOtherListsAreCopied() {
+		List<AssemblyInstruction> plain = new ArrayList<AssemblyInstruction>(Arrays.asList(write(1), write(2)));
+		InstructionList derived = InstructionList.derive(plain);
+
+		plain.clear();
+
+		assertThat(derived.size(), is(2));
+	}
+}
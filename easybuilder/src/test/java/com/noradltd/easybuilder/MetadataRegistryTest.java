@@ -0,0 +1,237 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+public class MetadataRegistryTest {
+
+	/**
+	 * Array classes of increasing dimension, a supply of distinct classes.
+	 */
+	private static Class<?> arrayClass(int dimensions) {
+		return Array.newInstance(Registered.class, new int[dimensions]).getClass();
+	}
+
+	@Test
+	public void testMetadataIsSharedBetweenLookups() {
+		assertThat(MetadataRegistry.of(Registered.class), is(sameInstance(MetadataRegistry.of(Registered.class))));
+		assertThat(FieldIndex.of(Registered.class), is(sameInstance(MetadataRegistry.of(Registered.class).getFieldIndex())));
+		assertThat(ConstructorResolver.of(Registered.class), is(sameInstance(MetadataRegistry.of(Registered.class).getConstructorResolver())));
+		assertThat(MethodResolver.of(Registered.class), is(sameInstance(MetadataRegistry.of(Registered.class).getMethodResolver())));
+		assertThat(InstantiatorRegistry.getInstantiatorOf(Registered.class), is(sameInstance(MetadataRegistry.of(Registered.class)
+				.getInstantiator())));
+	}
+
+	@Test
+	public void testRepeatedLookupsAreCountedAsHits() {
+		MetadataRegistry.of(Registered.class);
+		long hits = MetadataRegistry.getHitCount();
+		long misses = MetadataRegistry.getMissCount();
+
+		new EasyBuilder(Registered.class).setField("name", "hit").build();
+
+		assertThat(MetadataRegistry.getHitCount(), is(greaterThan(hits)));
+		assertThat(MetadataRegistry.getMissCount(), is(misses));
+		assertThat(MetadataRegistry.getHitRate() > 0.0, is(true));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedClassesAreEvicted() {
+		int maximumSize = MetadataRegistry.getMaximumSize();
+		long evictions = MetadataRegistry.getEvictionCount();
+		try {
+			MetadataRegistry.setMaximumSize(32);
+			ClassMetadata recent = MetadataRegistry.of(Registered.class);
+			for (int dimensions = 1; dimensions <= 100; dimensions++) {
+				MetadataRegistry.of(arrayClass(dimensions));
+				MetadataRegistry.of(Registered.class);
+			}
+
+			assertThat(MetadataRegistry.getSize(), is(lessThanOrEqualTo(32)));
+			assertThat(MetadataRegistry.getEvictionCount(), is(greaterThan(evictions)));
+			assertThat(MetadataRegistry.of(Registered.class), is(sameInstance(recent)));
+			long misses = MetadataRegistry.getMissCount();
+			MetadataRegistry.of(arrayClass(1));
+			assertThat(MetadataRegistry.getMissCount(), is(misses + 1));
+		} finally {
+			MetadataRegistry.setMaximumSize(maximumSize);
+		}
+	}
+
+	@Test
+	public void testEvictedMetadataIsCreatedAgain() {
+		int maximumSize = MetadataRegistry.getMaximumSize();
+		try {
+			MetadataRegistry.setMaximumSize(1);
+			ClassMetadata first = MetadataRegistry.of(arrayClass(200));
+			MetadataRegistry.of(arrayClass(201));
+			long misses = MetadataRegistry.getMissCount();
+
+			ClassMetadata again = MetadataRegistry.of(arrayClass(200));
+
+			assertThat(again, is(not(sameInstance(first))));
+			assertThat(MetadataRegistry.getMissCount(), is(misses + 1));
+		} finally {
+			MetadataRegistry.setMaximumSize(maximumSize);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaximumSizeMustBePositive() {
+		MetadataRegistry.setMaximumSize(0);
+	}
+
+	@Test
+	public void testClassLoaderIsNotPinned() throws Exception {
+		WeakReference<ClassLoader> loader = buildInThrowawayLoader();
+		for (int attempt = 0; attempt < 50 && loader.get() != null; attempt++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		assertThat(loader.get(), is(nullValue()));
+	}
+
+	private static WeakReference<ClassLoader> buildInThrowawayLoader() throws Exception {
+		ClassLoader loader = new IsolatingClassLoader(Registered.class.getName());
+		Class<?> isolated = loader.loadClass(Registered.class.getName());
+		assertThat(isolated, is(not(sameInstance((Object) Registered.class))));
+
+		new EasyBuilder(isolated).setField("name", "isolated").bypassConstructor().build();
+		new EasyBuilder(isolated).setField("name", "isolated").build();
+		new EasyBuilder(isolated).invokeMethod("getName", null).build();
+
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	@Test
+	public void testArgumentClassLoaderIsNotPinned() throws Exception {
+		WeakReference<ClassLoader> loader = buildWithThrowawayArgument();
+		for (int attempt = 0; attempt < 50 && loader.get() != null; attempt++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		assertThat(loader.get(), is(nullValue()));
+	}
+
+	private static WeakReference<ClassLoader> buildWithThrowawayArgument() throws Exception {
+		URL classes = MetadataRegistryTest.class.getProtectionDomain().getCodeSource().getLocation();
+		URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null);
+		Constructor<?> constructor = loader.loadClass(Registered.class.getName()).getDeclaredConstructor();
+		constructor.setAccessible(true);
+		Object argument = constructor.newInstance();
+		assertThat(argument.getClass(), is(not(sameInstance((Object) Registered.class))));
+
+		Accepting built = (Accepting) new EasyBuilder(Accepting.class).useAlternateConstructor(new Object[] { argument })
+				.invokeMethod("accept", new Object[] { argument }).build();
+		assertThat(built.accepted, is(sameInstance(argument)));
+		built = (Accepting) new EasyBuilder(Accepting.class).useAlternateConstructor(new Object[] { argument })
+				.invokeMethod("accept", new Object[] { argument }).compile().build();
+		assertThat(built.accepted, is(sameInstance(argument)));
+
+		loader.close();
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	/**
+	 * Loads its own copy of one class, and delegates everything else.
+	 */
+	private static final class IsolatingClassLoader extends ClassLoader {
+		private final String isolatedName;
+
+		IsolatingClassLoader(String isolatedName_p) {
+			super(MetadataRegistryTest.class.getClassLoader());
+			isolatedName = isolatedName_p;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!isolatedName.equals(name)) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> rval = findLoadedClass(name);
+				if (rval == null) {
+					byte[] bytes = readClass(name);
+					rval = defineClass(name, bytes, 0, bytes.length);
+				}
+				return rval;
+			}
+		}
+
+		private byte[] readClass(String name) throws ClassNotFoundException {
+			InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+					out.write(buffer, 0, read);
+				}
+				in.close();
+				return out.toByteArray();
+			} catch (IOException ioe) {
+				throw new ClassNotFoundException(name, ioe);
+			}
+		}
+	}
+}
+
+class Registered {
+	String name;
+
+	String getName() {
+		return name;
+	}
+}
+
+class Accepting {
+	Object accepted;
+
+	Accepting(Object accepted_p) {
+		accepted = accepted_p;
+	}
+
+	void accept(Object accepted_p) {
+		accepted = accepted_p;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class MethodResolverTest {
+
+	private static Object call(Object target, String methodName, Object... args) throws Throwable {
+		MethodResolver.ResolvedMethod method = MethodResolver.of(target.getClass()).resolve(methodName, args);
+		return (Object) method.handle.invokeExact(target, args);
+	}
+
+	@Test
+	public void testWrapperUnboxesToAPrimitiveParameter() throws Throwable {
+		Calculator calculator = new Calculator();
+
+		assertThat(call(calculator, "add", 2, 3), is((Object) Integer.valueOf(5)));
+	}
+
+	@Test
+	public void testWrapperWidensToAPrimitiveParameter() throws Throwable {
+		Calculator calculator = new Calculator();
+
+		call(calculator, "scale", Integer.valueOf(4));
+
+		assertThat(calculator.scale, is(4.0));
+	}
+
+	@Test
+	public void testNullMatchesAReferenceParameter() throws Throwable {
+		Calculator calculator = new Calculator();
+		calculator.label = "set";
+
+		call(calculator, "label", (Object) null);
+
+		assertThat(calculator.label, is(nullValue()));
+	}
+
+	@Test
+	public void testInheritedMethodIsFound() throws Throwable {
+		ExtendedCalculator calculator = new ExtendedCalculator();
+
+		assertThat(call(calculator, "add", 2, 3), is((Object) Integer.valueOf(5)));
+	}
+
+	@Test
+	public void testStaticMethodIgnoresTheInstance() throws Throwable {
+		assertThat(call(new Calculator(), "twice", 21), is((Object) Integer.valueOf(42)));
+	}
+
+	@Test
+	public void testVoidMethodReturnsNoValue() throws Throwable {
+		MethodResolver.ResolvedMethod method = MethodResolver.of(Calculator.class).resolve("label", new Object[] { "x" });
+
+		assertThat(method.returnsValue, is(false));
+	}
+
+	@Test
+	public void testMissingMethod() throws Exception {
+		assertThat(MethodResolver.of(Calculator.class).resolve("add", new Object[] { "a", "b" }), is(sameInstance(MethodResolver.MISSING)));
+		assertThat(MethodResolver.of(Calculator.class).resolve("noSuchMethod", null), is(sameInstance(MethodResolver.MISSING)));
+	}
+
+	@Test
+	public void testResolutionIsKeptPerNameAndSignature() throws Exception {
+		MethodResolver resolver = MethodResolver.of(Calculator.class);
+
+		assertThat(resolver.resolve("add", new Object[] { 1, 2 }), is(sameInstance(resolver.resolve("add", new Object[] { 3, 4 }))));
+	}
+
+	@Test
+	public void testResultIsSetOnAField() {
+		Calculator calculator = (Calculator) new EasyBuilder(Calculator.class) {
+			{
+				invokeMethod("add", new Object[] { 2, 3 });
+				setFieldFromResult("total", "add");
+			}
+		}.build();
+
+		assertThat(calculator.total, is(5));
+	}
+
+	@Test
+	public void testResultIsSetOnAFieldByACompiledBuilder() {
+		Calculator calculator = (Calculator) new EasyBuilder(Calculator.class) {
+			{
+				invokeMethod("add", new Object[] { 2, 3 });
+				setFieldFromResult("total", "add");
+			}
+		}.compile().build();
+
+		assertThat(calculator.total, is(5));
+	}
+
+	@Test
+	public void testArgumentsChangedAfterwardsAreNotSeenByATemplate() {
+		Object[] args = new Object[] { 2, 3 };
+		EasyBuilder template = new EasyBuilder(Calculator.class).invokeMethod("add", args).setFieldFromResult("total", "add").asTemplate();
+		args[0] = 40;
+
+		assertThat(((Calculator) template.build()).total, is(5));
+		assertThat(((Calculator) template.compile().build()).total, is(5));
+	}
+
+	@Test
+	public void testMissingResultFailsTheBuild() {
+		try {
+			new EasyBuilder(Calculator.class).setFieldFromResult("total", "add").build();
+			fail("add was never invoked");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause() instanceof IllegalStateException, is(true));
+		}
+	}
+
+	@Test
+	public void testUnknownFieldFailsTheBuild() {
+		try {
+			new EasyBuilder(Calculator.class).invokeMethod("add", new Object[] { 2, 3 }).setFieldFromResult("noSuchField", "add").build();
+			fail("Calculator has no field noSuchField");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause() instanceof NoSuchFieldException, is(true));
+		}
+	}
+
+	@Test
+	public void testUnknownFieldIsReportedWhenCompiled() {
+		EasyBuilder builder = new EasyBuilder(Calculator.class).invokeMethod("add", new Object[] { 2, 3 }).setFieldFromResult("noSuchField", "add");
+
+		try {
+			builder.compile();
+			fail("Calculator has no field noSuchField");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause() instanceof NoSuchFieldException, is(true));
+		}
+	}
+}
+
+class Calculator {
+	int total;
+	double scale;
+	String label;
+
+	int add(int a, int b) {
+		return a + b;
+	}
+
+	long add(long a, long b) {
+		return a + b;
+	}
+
+	void scale(double scale_p) {
+		scale = scale_p;
+	}
+
+	void label(String label_p) {
+		label = label_p;
+	}
+
+	static int twice(int a) {
+		return a * 2;
+	}
+}
+
+class ExtendedCalculator extends Calculator {
+}
@@ -23,37 +23,44 @@ THE SOFTWARE.
  */
 package com.noradltd.easybuilder;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+class PMethods {
+	boolean privateCalled = false;
+	boolean protectedCalled = false;
+	boolean packageCalled = false;
+	boolean publicCalled = false;
+	boolean finalCalled = false;
+	static boolean staticCalled = false;
+	boolean returnCalled = false;
 
-public aspect TracingAspect {
+	@SuppressWarnings("unused")
+	private void privateMethod() {
+		privateCalled = true;
+	}
 
-	final Logger logger = LoggerFactory.getLogger(EasyBuilder.class);
-	
-	void emit(String message) {
-		logger.info(message);
+	protected void protectedMethod() {
+		protectedCalled = true;
 	}
-	
-	pointcut traceAssemblyInstruction(EasyBuilder.AssemblyInstruction instruction): target(instruction) && call(void invoke(EasyBuilder));
-	
-	before(EasyBuilder.AssemblyInstruction instruction):traceAssemblyInstruction(instruction) {
-		emit("Invoking Assembly Instruction " + instruction.toString());
+
+	void packageMethod() {
+		packageCalled = true;
 	}
-	
-	pointcut traceAssembleObject(EasyBuilder builder):target(builder) && call(Object assembleObject());
-	
-	before(EasyBuilder builder):traceAssembleObject(builder) {
-		emit("Assembling Object with " + builder.toString());
+
+	public void publicMethod() {
+		publicCalled = true;
 	}
-	
-	pointcut tracePreCompileResult(EasyBuilder builder):target(builder) && call(void preCompile());
-	
-	before(EasyBuilder builder):tracePreCompileResult(builder) {
-		emit("Before PreCompile: AssemblyInstructions " + builder.toString());
+
+	final protected void finalMethod() {
+		finalCalled = true;
 	}
-	
-	after(EasyBuilder builder):tracePreCompileResult(builder) {
-		emit("After PreCompile: AssemblyInstructions " + builder.toString());
+
+	@SuppressWarnings("unused")
+	static private void staticMethod() {
+		staticCalled = true;
+	}
+
+	@SuppressWarnings("unused")
+	private Object returnMethod() {
+		returnCalled = true;
+		return new Object();
 	}
-	
 }
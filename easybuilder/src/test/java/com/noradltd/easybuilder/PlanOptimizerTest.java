@@ -0,0 +1,198 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.noradltd.easybuilder.EasyBuilder.AssemblyInstruction;
+
+public class PlanOptimizerTest {
+
+	private static AssemblyInstruction[] optimize(AssemblyInstruction... instructions) {
+		return PlanOptimizer.optimize(Arrays.asList(instructions), Layered.class);
+	}
+
+	@Test
+	public void testOverwrittenWriteIsDropped() {
+		EasyBuilder.SetFieldInstruction first = new EasyBuilder.SetFieldInstruction("name", "first");
+		EasyBuilder.SetFieldInstruction last = new EasyBuilder.SetFieldInstruction("name", "last");
+
+		AssemblyInstruction[] plan = optimize(new EasyBuilder.BasicInstantiateInstruction(), first, last);
+
+		assertThat(plan.length, is(2));
+		assertThat(plan[1], is((AssemblyInstruction) last));
+	}
+
+	@Test
+	public void testMethodInvocationKeepsEarlierWrite() {
+		AssemblyInstruction[] plan = optimize(new EasyBuilder.BasicInstantiateInstruction(), new EasyBuilder.IntFieldInstruction("count", 1,
+				null), new EasyBuilder.MethodInvocationInstruction("observe", null), new EasyBuilder.IntFieldInstruction("count", 2, null));
+
+		assertThat(plan.length, is(4));
+	}
+
+	@Test
+	public void testFailingWriteIsNeitherDroppedNorPassedOver() {
+		AssemblyInstruction[] plan = optimize(new EasyBuilder.IntFieldInstruction("count", 1, null), new EasyBuilder.SetFieldInstruction(
+				"count", "not a number"), new EasyBuilder.IntFieldInstruction("count", 2, null));
+
+		assertThat(plan.length, is(1));
+		assertThat(plan[0], is(instanceOf(EasyBuilder.BulkFieldInstruction.class)));
+		assertThat(((EasyBuilder.BulkFieldInstruction) plan[0]).writes.length, is(3));
+	}
+
+	@Test
+	public void testAdjacentWritesAreFused() {
+		AssemblyInstruction[] plan = optimize(new EasyBuilder.BasicInstantiateInstruction(), new EasyBuilder.IntFieldInstruction("count", 1,
+				null), new EasyBuilder.SetFieldInstruction("name", "fused"), new EasyBuilder.MethodInvocationInstruction("observe", null),
+				new EasyBuilder.DoubleFieldInstruction("ratio", 0.5, null));
+
+		assertThat(plan.length, is(4));
+		assertThat(plan[1], is(instanceOf(EasyBuilder.BulkFieldInstruction.class)));
+		assertThat(plan[3], is(instanceOf(EasyBuilder.DoubleFieldInstruction.class)));
+	}
+
+	@Test
+	public void testRedundantInstantiationIsDropped() {
+		AssemblyInstruction[] plan = optimize(new EasyBuilder.BypassingInstantiateInstruction(), new EasyBuilder.BasicInstantiateInstruction(),
+				new EasyBuilder.SetFieldInstruction("name", "only"));
+
+		assertThat(plan.length, is(2));
+		assertThat(plan[0], is(instanceOf(EasyBuilder.BypassingInstantiateInstruction.class)));
+	}
+
+	@Test
+	public void testPlanIsDescribed() {
+		String plan;
+		boolean optimizing = EasyBuilder.isOptimizing();
+		EasyBuilder.setOptimizing(true);
+		try {
+			plan = new EasyBuilder(Layered.class).setField("count", 1).setField("count", 2).setField("name", "n").describePlan();
+		} finally {
+			EasyBuilder.setOptimizing(optimizing);
+		}
+
+		assertThat(plan.contains("bulkSet"), is(true));
+		assertThat(plan.contains("value::1"), is(false));
+		assertThat(plan.contains("value::2"), is(true));
+	}
+
+	@Test
+	public void testFailingWriteStillFails() {
+		try {
+			new EasyBuilder(Layered.class).setField("count", "not a number").setField("count", 2).build();
+			fail("the first write can not succeed");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause(), is(instanceOf(IllegalArgumentException.class)));
+		}
+	}
+
+	@Test
+	public void testOptimizedPlansBuildTheSameObjects() {
+		Random random = new Random(18);
+		for (int round = 0; round < 200; round++) {
+			long seed = random.nextLong();
+			Layered optimized = (Layered) layeredBuilder(new Random(seed)).build();
+			Layered unoptimized;
+			boolean optimizing = EasyBuilder.isOptimizing();
+			EasyBuilder.setOptimizing(false);
+			try {
+				unoptimized = (Layered) layeredBuilder(new Random(seed)).build();
+			} finally {
+				EasyBuilder.setOptimizing(optimizing);
+			}
+			assertThat(optimized.describe(), is(unoptimized.describe()));
+		}
+	}
+
+	@Test
+	public void testOptimizedPlansCompileToTheSameObjects() {
+		Random random = new Random(17);
+		for (int round = 0; round < 50; round++) {
+			long seed = random.nextLong();
+			Layered interpreted = (Layered) layeredBuilder(new Random(seed)).build();
+			Layered compiled = (Layered) layeredBuilder(new Random(seed)).compile().build();
+			assertThat(compiled.describe(), is(interpreted.describe()));
+		}
+	}
+
+	/**
+	 * Layers random writes and invocations, the way builders assembled from
+	 * defaults and overrides do.
+	 */
+	private static EasyBuilder layeredBuilder(Random random) {
+		EasyBuilder builder = new EasyBuilder(Layered.class);
+		int instructions = 1 + random.nextInt(12);
+		for (int idx = 0; idx < instructions; idx++) {
+			switch (random.nextInt(6)) {
+			case 0:
+				builder.setField("count", random.nextInt(10));
+				break;
+			case 1:
+				builder.setField("name", "n" + random.nextInt(10));
+				break;
+			case 2:
+				builder.setField("ratio", random.nextDouble());
+				break;
+			case 3:
+				builder.setField("total", (long) random.nextInt(10));
+				break;
+			case 4:
+				builder.invokeMethod("observe", null);
+				break;
+			default:
+				builder.setField("count", (short) random.nextInt(10));
+				break;
+			}
+		}
+		return builder;
+	}
+}
+
+class Layered {
+	int count;
+	long total;
+	double ratio;
+	String name;
+	List<String> observed = new ArrayList<String>();
+
+	void observe() {
+		observed.add(name + ":" + count);
+	}
+
+	String describe() {
+		return new StringBuffer().append(count).append(",").append(total).append(",").append(ratio).append(",").append(name).append(",").append(
+				observed).toString();
+	}
+}
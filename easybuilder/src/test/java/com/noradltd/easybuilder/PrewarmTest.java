@@ -0,0 +1,121 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PrewarmTest {
+
+	@Test
+	public void testEachClassIsTimed() {
+		PrewarmReport report = EasyBuilder.prewarm(Prewarmed.class, OneOfEach.class);
+
+		assertThat(report.getTimings().keySet().toArray(), is(new Object[] { Prewarmed.class.getName(), OneOfEach.class.getName() }));
+		assertThat(report.getFailures().isEmpty(), is(true));
+		assertThat(report.toString().contains(Prewarmed.class.getName()), is(true));
+	}
+
+	@Test
+	public void testFirstBuildResolvesNothingMore() {
+		EasyBuilder.prewarm(PrewarmedOnce.class);
+		long misses = MetadataRegistry.getMissCount();
+		long instantiatorMisses = InstantiatorRegistry.getMissCount();
+
+		PrewarmedOnce built = (PrewarmedOnce) new EasyBuilder(PrewarmedOnce.class).setField("name", "warm").setField("count", 2).build();
+		new EasyBuilder(PrewarmedOnce.class).bypassConstructor().build();
+
+		assertThat(built.name, is("warm"));
+		assertThat(MetadataRegistry.getMissCount(), is(misses));
+		assertThat(InstantiatorRegistry.getMissCount(), is(instantiatorMisses));
+	}
+
+	@Test
+	public void testNothingIsBuilt() {
+		int constructed = Prewarmed.constructed.get();
+
+		EasyBuilder.prewarm(Prewarmed.class);
+
+		assertThat(Prewarmed.constructed.get(), is(constructed));
+	}
+
+	@Test
+	public void testClassesArePrewarmedOnTheExecutor() {
+		final AtomicInteger tasks = new AtomicInteger();
+		Executor counting = new Executor() {
+			public void execute(Runnable command) {
+				tasks.incrementAndGet();
+				command.run();
+			}
+		};
+
+		EasyBuilder.prewarm(counting, Prewarmed.class, PrewarmedOnce.class, OneOfEach.class);
+
+		assertThat(tasks.get(), is(3));
+	}
+
+	@Test
+	public void testPackageIsScanned() throws Exception {
+		PrewarmReport report = EasyBuilder.prewarmPackage("com.noradltd.easybuilder");
+
+		assertThat(report.getTimings().keySet(), hasItem(EasyBuilder.class.getName()));
+		assertThat(report.getTimings().keySet(), hasItem(Prewarmed.class.getName()));
+		assertThat(report.getTimings().keySet(), not(hasItem(PrewarmTest.class.getName() + "$1")));
+		assertThat(report.getFailures().toString(), report.getFailures().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testJarsAreScanned() throws Exception {
+		List<String> classNames = Prewarmer.scan("org.junit.runner.notification", PrewarmTest.class.getClassLoader());
+
+		assertThat(classNames, hasItem("org.junit.runner.notification.RunListener"));
+	}
+}
+
+class Prewarmed {
+	static final AtomicInteger constructed = new AtomicInteger();
+	String name;
+
+	Prewarmed() {
+		constructed.incrementAndGet();
+	}
+
+	Prewarmed(String name_p) {
+		this();
+		name = name_p;
+	}
+}
+
+class PrewarmedOnce {
+	String name;
+	int count;
+}
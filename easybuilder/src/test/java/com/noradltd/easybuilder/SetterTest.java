@@ -0,0 +1,121 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.Test;
+
+public class SetterTest {
+
+	private static EasyBuilder newBuilder() {
+		return new EasyBuilder(Person.class) {
+			{
+				set(Person::setName, "Pat");
+				set(Person::setAge, 42);
+				set(Person::setSalary, 90000L);
+				set(Person::setHeight, 1.8);
+				set(Person::setEmployed, true);
+			}
+		};
+	}
+
+	private static void assertFullyBuilt(Person person) {
+		assertThat(person.name, is("Pat"));
+		assertThat(person.age, is(42));
+		assertThat(person.salary, is(90000L));
+		assertThat(person.height, is(1.8));
+		assertThat(person.employed, is(true));
+	}
+
+	@Test
+	public void testSettersAreCalled() {
+		assertFullyBuilt((Person) newBuilder().build());
+	}
+
+	@Test
+	public void testSettersAreCalledByACompiledBuilder() {
+		assertFullyBuilt((Person) newBuilder().compile().build());
+	}
+
+	@Test
+	public void testSettersRunInOrderWithOtherInstructions() {
+		Person person = (Person) new EasyBuilder(Person.class).setField("age", 1).set(Person::setAge, 2).build();
+
+		assertThat(person.age, is(2));
+	}
+
+	@Test
+	public void testTypedLambdaSetsAField() {
+		Person person = (Person) new EasyBuilder(Person.class).set((Person p, int v) -> p.age = v * 2, 21).build();
+
+		assertThat(person.age, is(42));
+	}
+
+	@Test
+	public void testSetterExceptionIsWrapped() {
+		try {
+			new EasyBuilder(Person.class).set(Person::setAge, -1).build();
+			fail("a negative age is refused");
+		} catch (RuntimeException re) {
+			assertThat(re.getCause() instanceof InvocationTargetException, is(true));
+			assertThat(re.getCause().getCause() instanceof IllegalArgumentException, is(true));
+		}
+	}
+}
+
+class Person {
+	String name;
+	int age;
+	long salary;
+	double height;
+	boolean employed;
+
+	void setName(String name_p) {
+		name = name_p;
+	}
+
+	void setAge(int age_p) {
+		if (age_p < 0) {
+			throw new IllegalArgumentException("age");
+		}
+		age = age_p;
+	}
+
+	void setSalary(long salary_p) {
+		salary = salary_p;
+	}
+
+	void setHeight(double height_p) {
+		height = height_p;
+	}
+
+	void setEmployed(boolean employed_p) {
+		employed = employed_p;
+	}
+}
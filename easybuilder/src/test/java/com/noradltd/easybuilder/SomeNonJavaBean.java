@@ -0,0 +1,60 @@
+/*
+ The MIT License
+
+Copyright (c) 2009-2014 NOrad Ltd.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+ */
+package com.noradltd.easybuilder;
+
+class SomeNonJavaBean {
+
+	private String param1;
+	private int param2;
+	private SomeParameter someParameter;
+
+	public SomeNonJavaBean() {
+		throw new RuntimeException("Should not be invoked");
+	}
+
+	public SomeNonJavaBean(String param1, int param2) {
+		this.param1 = param1;
+		this.param2 = param2;
+		this.someParameter = null;
+	}
+
+	public SomeNonJavaBean(String param1, int param2, SomeParameter someParameter) {
+		this.param1 = param1;
+		this.param2 = param2;
+		this.someParameter = someParameter;
+	}
+
+	public SomeParameter getSomeParameter() {
+		return someParameter;
+	}
+
+	public boolean equals(Object obj) {
+		if (obj == null) {
+			return false;
+		}
+		SomeNonJavaBean another = (SomeNonJavaBean) obj;
+		return this.param1.equals(another.param1) && this.param2 == another.param2;
+	}
+
+}